@@ -0,0 +1,12 @@
+package com.healthy.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Bật @Async (email) và @Scheduled (outbox dispatcher, nhắc KPI, dọn token)
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class SchedulingConfig {
+}
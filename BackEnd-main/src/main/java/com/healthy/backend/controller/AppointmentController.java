@@ -49,13 +49,19 @@ public class AppointmentController {
     private  final StudentRepository studentRepository;
     private final StudentService studentService;
 
+    @Operation(
+            summary = "Filter appointments",
+            description = "Returns one page ordered by slot date and appointment ID. Pass nextCursor back as cursor to get the following page."
+    )
     @GetMapping("/filter")
-    public ResponseEntity<List<AppointmentResponse>> filterAppointments(
+    public ResponseEntity<AppointmentPageResponse> filterAppointments(
             @RequestParam(required = false) String studentId,
             @RequestParam(required = false) String psychologistId,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false) List<AppointmentStatus> status,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size,
             HttpServletRequest httpRequest) {
 
         Users currentUser = tokenService.retrieveUser(httpRequest);
@@ -107,12 +113,14 @@ public class AppointmentController {
             throw new ResourceNotFoundException("Psychologist not found");
         }
 
-        List<AppointmentResponse> responses = appointmentService.filterAppointments(
+        AppointmentPageResponse responses = appointmentService.filterAppointments(
                 finalStudentId,
                 finalPsychologistId,
                 startDate,
                 endDate,
-                status
+                status,
+                cursor,
+                size
         );
 
         return ResponseEntity.ok(responses);
@@ -150,6 +158,42 @@ public class AppointmentController {
     }
 
 
+    @Operation(summary = "Join the waitlist of a full time slot",
+            description = "The student is booked automatically, in FIFO order, when a seat frees up.")
+    @PostMapping("/waitlist/{timeSlotId}")
+    public ResponseEntity<WaitlistResponse> joinWaitlist(
+            @PathVariable String timeSlotId,
+            HttpServletRequest httpRequest) {
+        if (!tokenService.validateRole(httpRequest, Role.STUDENT)) {
+            throw new AuthorizeException("Only students can join a waitlist");
+        }
+        Users currentUser = tokenService.retrieveUser(httpRequest);
+        return ResponseEntity.ok(appointmentService.joinWaitlist(currentUser.getUserId(), timeSlotId));
+    }
+
+    @Operation(summary = "Leave the waitlist of a time slot")
+    @DeleteMapping("/waitlist/{timeSlotId}")
+    public ResponseEntity<Void> leaveWaitlist(
+            @PathVariable String timeSlotId,
+            HttpServletRequest httpRequest) {
+        if (!tokenService.validateRole(httpRequest, Role.STUDENT)) {
+            throw new AuthorizeException("Only students can leave a waitlist");
+        }
+        Users currentUser = tokenService.retrieveUser(httpRequest);
+        appointmentService.leaveWaitlist(currentUser.getUserId(), timeSlotId);
+        return ResponseEntity.noContent().build();
+    }
+
+    @Operation(summary = "Get waitlist status of a time slot",
+            description = "Returns the number of waiting students, and the caller's position if they are waiting.")
+    @GetMapping("/waitlist/{timeSlotId}")
+    public ResponseEntity<WaitlistResponse> getWaitlistStatus(
+            @PathVariable String timeSlotId,
+            HttpServletRequest httpRequest) {
+        Users currentUser = tokenService.retrieveUser(httpRequest);
+        return ResponseEntity.ok(appointmentService.getWaitlistStatus(currentUser.getUserId(), timeSlotId));
+    }
+
     // Hủy lịch hẹn
     // Trong AppointmentController
     @Operation(summary = "Request cancel of an appointment")
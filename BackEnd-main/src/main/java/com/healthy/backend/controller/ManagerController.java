@@ -4,15 +4,23 @@ import com.healthy.backend.dto.manager.*;
 import com.healthy.backend.enums.Role;
 import com.healthy.backend.repository.PsychologistKPIRepository;
 import com.healthy.backend.security.TokenService;
+import com.healthy.backend.service.DashboardRollupService;
 import com.healthy.backend.service.ManagerService;
+import com.healthy.backend.service.ReportExportService;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.List;
 
@@ -25,6 +33,8 @@ public class ManagerController {
     private final ManagerService managerService;
     private  final TokenService tokenService;
     private final PsychologistKPIRepository kpiRepository;
+    private final DashboardRollupService dashboardRollupService;
+    private final ReportExportService reportExportService;
     // Endpoint to get appointment statistics by status
     @GetMapping("/stats/appointments")
     public AppointmentStatsResponse getAppointmentStats(
@@ -37,14 +47,143 @@ public class ManagerController {
         return managerService.getAppointmentStats();
     }
 
+    @Operation(summary = "Rebuild dashboard rollups",
+            description = "Recount the daily dashboard rollups from the raw tables. " +
+                    "The dashboard reads the raw tables until the backfill job has finished.")
+    @PostMapping("/stats/rollups/rebuild")
+    public ResponseEntity<String> rebuildDashboardRollups(HttpServletRequest httpRequest) {
+        if (!tokenService.validateRole(httpRequest, Role.MANAGER) ) {
+            throw new IllegalArgumentException("Unauthorized access rebuild dashboard rollups");
+        }
+        dashboardRollupService.rebuild();
+        return ResponseEntity.ok("Dashboard rollup rebuild started");
+    }
+
+    @Operation(summary = "Session duration and booking lead time percentiles",
+            description = "p50/p90/p99 in minutes of session duration (check-out - check-in) and lead time " +
+                    "(slot start - booking time) for one psychologist, one department or everyone.")
+    @GetMapping("/stats/session-latency")
+    public SessionLatencyResponse getSessionLatencyStats(
+            @RequestParam(required = false) String psychologistId,
+            @RequestParam(required = false) String departmentId,
+            HttpServletRequest httpRequest
+    ) {
+        if (!tokenService.validateRole(httpRequest, Role.MANAGER) ) {
+            throw new IllegalArgumentException("Unauthorized access get session latency");
+        }
+        return managerService.getSessionLatencyStats(psychologistId, departmentId);
+    }
+
+    @Operation(summary = "Department statistics",
+            description = "Appointment count, completed/cancelled counts, completion rate and average rating " +
+                    "per department for the period (filter: week/month/year, value: week/month/year number).")
+    @GetMapping("/stats/departments")
+    public List<DepartmentStatsResponse> getDepartmentStats(
+            @RequestParam(required = false) String filter,
+            @RequestParam(required = false) Integer value,
+            HttpServletRequest httpRequest
+    ) {
+        if (!tokenService.validateRole(httpRequest, Role.MANAGER) ) {
+            throw new IllegalArgumentException("Unauthorized access get department stats");
+        }
+        return managerService.getDepartmentStats(filter, value);
+    }
+
+    @Operation(summary = "Export appointments as CSV",
+            description = "Appointments created between startDate and endDate, ordered by ID. " +
+                    "To resume an interrupted download pass the last received AppointmentID as 'after'.")
+    @GetMapping("/export/appointments")
+    public void exportAppointments(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String after,
+            HttpServletRequest httpRequest,
+            HttpServletResponse response
+    ) throws IOException {
+        if (!tokenService.validateRole(httpRequest, Role.MANAGER) ) {
+            throw new IllegalArgumentException("Unauthorized access export appointments");
+        }
+        prepareCsv(response, "appointments", startDate, endDate);
+        reportExportService.exportAppointments(startDate, endDate, after, response.getWriter());
+    }
+
+    @Operation(summary = "Export survey results as CSV",
+            description = "Survey results created between startDate and endDate, ordered by ID. " +
+                    "To resume an interrupted download pass the last received ResultID as 'after'.")
+    @GetMapping("/export/survey-results")
+    public void exportSurveyResults(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String after,
+            HttpServletRequest httpRequest,
+            HttpServletResponse response
+    ) throws IOException {
+        if (!tokenService.validateRole(httpRequest, Role.MANAGER) ) {
+            throw new IllegalArgumentException("Unauthorized access export survey results");
+        }
+        prepareCsv(response, "survey-results", startDate, endDate);
+        reportExportService.exportSurveyResults(startDate, endDate, after, response.getWriter());
+    }
+
+    @Operation(summary = "Export psychologist KPIs as CSV",
+            description = "KPI rows of every month overlapping startDate..endDate, ordered by ID. " +
+                    "To resume an interrupted download pass the last received KpiID as 'after'.")
+    @GetMapping("/export/kpis")
+    public void exportKpis(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String after,
+            HttpServletRequest httpRequest,
+            HttpServletResponse response
+    ) throws IOException {
+        if (!tokenService.validateRole(httpRequest, Role.MANAGER) ) {
+            throw new IllegalArgumentException("Unauthorized access export KPIs");
+        }
+        prepareCsv(response, "kpis", startDate, endDate);
+        reportExportService.exportKpis(startDate, endDate, after, response.getWriter());
+    }
+
+    // Body được ghi dần theo cursor (chunked); gzip do server.compression đảm nhận
+    private void prepareCsv(HttpServletResponse response, String name, LocalDate startDate, LocalDate endDate) {
+        response.setContentType("text/csv");
+        response.setCharacterEncoding("UTF-8");
+        response.setHeader("Content-Disposition",
+                "attachment; filename=\"" + name + "-" + startDate + "-" + endDate + ".csv\"");
+    }
+
+    @Operation(summary = "Psychologist leaderboard",
+            description = "Appointment count, average rating, completed and cancelled counts per psychologist. " +
+                    "sortBy: appointmentCount, averageRating, completedCount, cancelledCount, fullName. " +
+                    "Without page/size every psychologist is returned.")
     @GetMapping("/stats/psychologists")
     public List<PsychologistStatsResponse> getPsychologistStats(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false) String departmentId,
+            @RequestParam(required = false) String sortBy,
+            @RequestParam(required = false) String direction,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) Integer size,
             HttpServletRequest httpRequest
     ) {
         if (!tokenService.validateRole(httpRequest, Role.MANAGER) ) {
             throw new IllegalArgumentException("Unauthorized access get Appointments ");
         }
-        return managerService.getPsychologistStats();
+        return managerService.getPsychologistStats(startDate, endDate, departmentId, sortBy, direction, page, size);
+    }
+
+    @Operation(summary = "Set KPI targets in bulk",
+            description = "Set the target slots of a department and/or a list of psychologists for several months " +
+                    "of a year. Missing KPI rows are created.")
+    @PutMapping("/kpi/bulk")
+    public ResponseEntity<KpiBulkResponse> updateKpiBulk(
+            @RequestBody @Valid KpiBulkRequest request,
+            HttpServletRequest httpServlet) {
+        if (!tokenService.validateRole(httpServlet, Role.MANAGER)) {
+            throw new IllegalArgumentException("Unauthorized access");
+        }
+
+        return ResponseEntity.ok(managerService.setKpiBulk(request));
     }
 
     @PutMapping("/kpi") // Thay đổi từ PostMapping sang PutMapping
@@ -92,6 +231,17 @@ public class ManagerController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Dashboard cache metrics",
+            description = "Hit, miss, coalesced and eviction counts and compute time of the dashboard cache.")
+    @GetMapping("/dashboard/cache-stats")
+    public ResponseEntity<DashboardCacheStatsResponse> getDashboardCacheStats(HttpServletRequest httpRequest) {
+        if (!tokenService.validateRole(httpRequest, Role.MANAGER)) {
+            throw new IllegalArgumentException("Unauthorized access");
+        }
+
+        return ResponseEntity.ok(managerService.getDashboardCacheStats());
+    }
+
     @GetMapping("/dashboard")
     public ResponseEntity<ManagerDashboardResponse> getManagerDashboard(
             @RequestParam(required = false) String filter, // week/month/year
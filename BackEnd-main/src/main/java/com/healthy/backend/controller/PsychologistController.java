@@ -4,18 +4,23 @@ package com.healthy.backend.controller;
 import com.healthy.backend.dto.psychologist.DepartmentResponse;
 import com.healthy.backend.dto.psychologist.PsychologistRequest;
 import com.healthy.backend.dto.psychologist.PsychologistResponse;
+import com.healthy.backend.dto.timeslot.AvailableSlotResponse;
 import com.healthy.backend.dto.timeslot.DefaultTimeSlotResponse;
 import com.healthy.backend.dto.timeslot.TimeSlotBatchCreateRequest;
 import com.healthy.backend.dto.timeslot.TimeSlotResponse;
+import com.healthy.backend.dto.timeslot.WeeklyScheduleRequest;
+import com.healthy.backend.dto.timeslot.WeeklyScheduleResponse;
 import com.healthy.backend.entity.Students;
 import com.healthy.backend.entity.Users;
 import com.healthy.backend.enums.Role;
 import com.healthy.backend.exception.AuthorizeException;
+import com.healthy.backend.exception.ResourceInvalidException;
 import com.healthy.backend.mapper.TimeSlotMapper;
 import com.healthy.backend.repository.StudentRepository;
 import com.healthy.backend.security.TokenService;
 import com.healthy.backend.service.AppointmentService;
 import com.healthy.backend.service.PsychologistService;
+import com.healthy.backend.service.ScheduleTemplateService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -27,6 +32,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @RestController
@@ -40,6 +46,7 @@ public class PsychologistController {
     private final TimeSlotMapper timeSlotMapper;
     private final AppointmentService appointmentService;
     private final PsychologistService psychologistService;
+    private final ScheduleTemplateService scheduleTemplateService;
     private final TokenService tokenService;
     private final StudentRepository studentRepository;
 
@@ -188,6 +195,48 @@ public class PsychologistController {
     }
 
 
+    @Operation(summary = "Get the recurring weekly schedule of a psychologist")
+    @GetMapping("/schedule-template")
+    public ResponseEntity<WeeklyScheduleResponse> getWeeklySchedule(
+            @RequestParam(required = false) String psychologistId,
+            HttpServletRequest httpRequest) {
+        String finalPsychologistId = resolveScheduleOwner(psychologistId, httpRequest);
+        return ResponseEntity.ok(scheduleTemplateService.getTemplate(finalPsychologistId));
+    }
+
+    @Operation(summary = "Set the recurring weekly schedule of a psychologist",
+            description = "Replaces the weekly template and upcoming exception dates, then generates time slots for the coming weeks.")
+    @PutMapping("/schedule-template")
+    public ResponseEntity<WeeklyScheduleResponse> saveWeeklySchedule(
+            @RequestParam(required = false) String psychologistId,
+            @RequestBody @Valid WeeklyScheduleRequest request,
+            HttpServletRequest httpRequest) {
+        String finalPsychologistId = resolveScheduleOwner(psychologistId, httpRequest);
+        return ResponseEntity.ok(scheduleTemplateService.saveTemplate(finalPsychologistId, request));
+    }
+
+    // Psychologist chỉ được xem/sửa lịch của chính mình, manager thì phải truyền psychologistId
+    private String resolveScheduleOwner(String psychologistId, HttpServletRequest httpRequest) {
+        Users currentUser = tokenService.retrieveUser(httpRequest);
+
+        if (tokenService.validateRole(httpRequest, Role.STUDENT) || tokenService.validateRole(httpRequest, Role.PARENT)) {
+            throw new AuthorizeException("Unauthorized access to weekly schedules");
+        }
+
+        if (tokenService.validateRole(httpRequest, Role.PSYCHOLOGIST)) {
+            String actualId = psychologistService.getPsychologistIdByUserId(currentUser.getUserId());
+            if (psychologistId != null && !psychologistId.equals(actualId)) {
+                throw new AuthorizeException("Unauthorized to access schedules of other psychologists");
+            }
+            return actualId;
+        }
+
+        if (psychologistId == null) {
+            throw new ResourceInvalidException("psychologistId is required");
+        }
+        return psychologistId;
+    }
+
     @Operation(summary = "Lấy danh sách time slots")
     @GetMapping("/timeslots")
     public ResponseEntity<List<TimeSlotResponse>> getTimeSlots(
@@ -208,6 +257,33 @@ public class PsychologistController {
         return ResponseEntity.ok(slots);
     }
 
+    @Operation(summary = "Find the earliest available time slots in a department",
+            description = "Searches every active psychologist of the department within the date window. " +
+                    "fromTime/toTime restrict the time of day.")
+    @GetMapping("/timeslots/next-available")
+    public ResponseEntity<List<AvailableSlotResponse>> getNextAvailableSlots(
+            @RequestParam String departmentId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fromDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate toDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime fromTime,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.TIME) LocalTime toTime,
+            @RequestParam(defaultValue = "5") int limit,
+            HttpServletRequest request) {
+
+        Users currentUser = tokenService.retrieveUser(request);
+        String studentId = null;
+
+        // Student thì bỏ qua các slot đã đặt
+        if (currentUser.getRole() == Role.STUDENT) {
+            Students student = studentRepository.findByUserID(currentUser.getUserId());
+            studentId = student.getStudentID();
+        }
+
+        List<AvailableSlotResponse> slots = psychologistService.findNextAvailableSlots(
+                departmentId, fromDate, toDate, fromTime, toTime, limit, studentId);
+        return !slots.isEmpty() ? ResponseEntity.ok(slots) : ResponseEntity.noContent().build();
+    }
+
     @Operation(summary = "Get default time slots")
     @GetMapping("/default-time-slots")
     public ResponseEntity<List<DefaultTimeSlotResponse>> getDefaultTimeSlots() {
@@ -2,8 +2,11 @@ package com.healthy.backend.controller;
 
 import com.healthy.backend.dto.survey.*;
 import com.healthy.backend.entity.Users;
+import com.healthy.backend.enums.Role;
+import com.healthy.backend.exception.AuthorizeException;
 import com.healthy.backend.exception.ResourceNotFoundException;
 import com.healthy.backend.security.TokenService;
+import com.healthy.backend.service.SurveyBulkSubmissionService;
 import com.healthy.backend.service.SurveyService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
@@ -26,6 +29,7 @@ import java.util.List;
 public class SurveyController {
 
     private final SurveyService surveyService;
+    private final SurveyBulkSubmissionService surveyBulkSubmissionService;
     private final TokenService tokenService;
 
     @Operation(
@@ -55,6 +59,21 @@ public class SurveyController {
         return ResponseEntity.ok(status);
     }
 
+    @Operation(
+            summary = "Submit survey answers for many students",
+            description = "Scores and saves the submissions of a whole class in one request. " +
+                    "Invalid submissions are skipped and reported by position; the others are saved."
+    )
+    @PostMapping("/options/scoreResult/bulk")  // Manager or Psychologist Only
+    public ResponseEntity<SurveyBulkSubmissionResponse> submitSurveyBulk(
+            HttpServletRequest request,
+            @Valid @RequestBody SurveyBulkSubmissionRequest bulkRequest) {
+        if (!tokenService.validateRole(request, List.of(Role.MANAGER, Role.PSYCHOLOGIST))) {
+            throw new AuthorizeException("Only managers and psychologists can submit surveys in bulk");
+        }
+        return ResponseEntity.ok(surveyBulkSubmissionService.submit(bulkRequest));
+    }
+
     @Operation(
             summary = "Get survey details",
             description = "Returns details for a specific survey."
@@ -0,0 +1,24 @@
+package com.healthy.backend.dto.appointment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AppointmentPageResponse {
+
+    private List<AppointmentResponse> items;
+
+    @Schema(description = "Opaque cursor for the next page; absent on the last page",
+            example = "MjAyNS0wMy0xMHxBUFAwMDAwMDAx")
+    private String nextCursor;
+}
@@ -4,13 +4,16 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import com.healthy.backend.dto.psychologist.PsychologistResponse;
 import com.healthy.backend.dto.student.StudentResponse;
 import com.healthy.backend.entity.TimeSlots;
+import com.healthy.backend.enums.AppointmentStatus;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 
 @Data
 @Builder
@@ -74,4 +77,22 @@ public class AppointmentResponse {
     private String endTime;
     @Schema(example = "")
     private String slotDate;
-}
\ No newline at end of file
+
+    // Constructor expression target for AppointmentFilterRepositoryImpl.filterPage
+    public AppointmentResponse(String appointmentID, String studentID, String studentName,
+                               String psychologistID, String psychologistName, AppointmentStatus status,
+                               LocalDateTime createdAt, LocalDateTime updatedAt,
+                               LocalDate slotDate, LocalTime startTime, LocalTime endTime) {
+        this.appointmentID = appointmentID;
+        this.studentID = studentID;
+        this.studentName = studentName;
+        this.psychologistID = psychologistID;
+        this.psychologistName = psychologistName;
+        this.Status = String.valueOf(status);
+        this.CreatedAt = createdAt;
+        this.UpdatedAt = updatedAt;
+        this.slotDate = String.valueOf(slotDate);
+        this.startTime = String.valueOf(startTime);
+        this.endTime = String.valueOf(endTime);
+    }
+}
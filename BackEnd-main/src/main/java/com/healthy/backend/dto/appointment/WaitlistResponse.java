@@ -0,0 +1,30 @@
+package com.healthy.backend.dto.appointment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WaitlistResponse {
+
+    private String timeSlotId;
+
+    private String studentId;
+
+    @Schema(description = "1-based position of the student in the slot queue", example = "2")
+    private Long position;
+
+    @Schema(description = "Number of students currently waiting for the slot", example = "5")
+    private long waitingCount;
+
+    private LocalDateTime joinedAt;
+}
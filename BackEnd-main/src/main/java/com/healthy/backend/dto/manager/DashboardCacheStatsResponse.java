@@ -0,0 +1,20 @@
+package com.healthy.backend.dto.manager;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DashboardCacheStatsResponse {
+    private long hits;
+    private long misses; // số lần thực sự tính lại dashboard
+    private long coalesced; // request chờ kết quả của một lần tính đang chạy
+    private long evictions;
+    private int size;
+    private double averageComputeMillis;
+    private double maxComputeMillis;
+}
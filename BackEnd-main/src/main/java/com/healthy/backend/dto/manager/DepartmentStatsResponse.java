@@ -0,0 +1,28 @@
+package com.healthy.backend.dto.manager;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class DepartmentStatsResponse {
+    private String departmentId;
+    private String departmentName;
+    private long appointmentCount;
+    private long completedCount;
+    private long cancelledCount;
+    private double completionRate; // % completed / tất cả appointment trong kỳ
+    private Double averageRating; // null khi chưa có đánh giá
+
+    // Constructor expression của AppointmentRepository.findDepartmentStats; SUM trả về null khi không có appointment
+    public DepartmentStatsResponse(String departmentId, String departmentName, Long appointmentCount,
+                                   Long completedCount, Long cancelledCount, Double averageRating) {
+        this.departmentId = departmentId;
+        this.departmentName = departmentName;
+        this.appointmentCount = appointmentCount != null ? appointmentCount : 0;
+        this.completedCount = completedCount != null ? completedCount : 0;
+        this.cancelledCount = cancelledCount != null ? cancelledCount : 0;
+        this.completionRate = this.appointmentCount > 0 ? this.completedCount * 100.0 / this.appointmentCount : 0;
+        this.averageRating = averageRating;
+    }
+}
@@ -0,0 +1,34 @@
+package com.healthy.backend.dto.manager;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KpiBulkRequest {
+    @Schema(description = "Apply to every psychologist of this department", example = "DPT001")
+    private String departmentId;
+
+    @Schema(description = "Apply to these psychologists (combined with departmentId if both are given)",
+            example = "[\"PSY001\", \"PSY002\"]")
+    private List<String> psychologistIds;
+
+    @NotNull
+    @Schema(example = "2025")
+    private Integer year;
+
+    @Schema(description = "Months 1-12; all months of the year when omitted", example = "[1, 2, 3]")
+    private List<Integer> months;
+
+    @NotNull
+    @Min(0)
+    @Schema(example = "30")
+    private Integer targetSlots;
+}
@@ -0,0 +1,15 @@
+package com.healthy.backend.dto.manager;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KpiBulkResponse {
+    private int psychologistCount;
+    private int created; // KPI chưa có, được insert mới
+    private int updated; // KPI đã có, được đổi target
+    private String message;
+}
@@ -1,11 +1,26 @@
 package com.healthy.backend.dto.manager;
 
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor
 public class PsychologistStatsResponse {
     private String psychologistId;
     private String fullName;
     private double averageRating;
     private long appointmentCount;
-}
\ No newline at end of file
+    private long completedCount;
+    private long cancelledCount;
+
+    // Constructor expression target for AppointmentRepository.findPsychologistStats
+    public PsychologistStatsResponse(String psychologistId, String fullName, Long appointmentCount,
+                                     Double averageRating, Long completedCount, Long cancelledCount) {
+        this.psychologistId = psychologistId;
+        this.fullName = fullName;
+        this.appointmentCount = appointmentCount == null ? 0 : appointmentCount;
+        this.averageRating = averageRating == null ? 0.0 : averageRating;
+        this.completedCount = completedCount == null ? 0 : completedCount;
+        this.cancelledCount = cancelledCount == null ? 0 : cancelledCount;
+    }
+}
@@ -0,0 +1,15 @@
+package com.healthy.backend.dto.manager;
+
+import com.healthy.backend.stats.LatencySummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionLatencyResponse {
+    private String scope; // ALL, PSYCHOLOGIST:<id> hoặc DEPARTMENT:<id>
+    private LatencySummary sessionDurationMinutes; // checkOut - checkIn
+    private LatencySummary leadTimeMinutes; // giờ bắt đầu slot - lúc đặt
+}
@@ -0,0 +1,25 @@
+package com.healthy.backend.dto.survey;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SurveyBulkSubmissionRequest {
+    @NotBlank
+    @Schema(example = "SUV001")
+    private String surveyId;
+
+    // Từng bài nộp được kiểm tra riêng, bài lỗi được báo theo vị trí trong SurveyBulkSubmissionResponse
+    @NotEmpty
+    @Size(max = 1000)
+    private List<SurveySubmission> submissions;
+}
@@ -0,0 +1,17 @@
+package com.healthy.backend.dto.survey;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SurveyBulkSubmissionResponse {
+    private String surveyId;
+    private int accepted;
+    private int rejected;
+    private List<SurveySubmissionResult> results;
+}
@@ -0,0 +1,18 @@
+package com.healthy.backend.dto.survey;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SurveySubmission {
+    @Schema(example = "STU001")
+    private String studentId;
+    @Schema(example = "[\"SQO001\", \"SQO006\", \"SQO011\"]")
+    private List<String> optionIds;
+}
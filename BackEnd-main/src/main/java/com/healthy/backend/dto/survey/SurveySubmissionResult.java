@@ -0,0 +1,26 @@
+package com.healthy.backend.dto.survey;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SurveySubmissionResult {
+    @Schema(description = "Position of the submission in the request", example = "0")
+    private int index;
+    @Schema(example = "STU001")
+    private String studentId;
+    @Schema(description = "Set when the submission was saved")
+    private String resultId;
+    @Schema(example = "12/40")
+    private String score;
+    @Schema(description = "Set when the submission was rejected")
+    private String error;
+}
@@ -0,0 +1,33 @@
+package com.healthy.backend.dto.timeslot;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AvailableSlotResponse {
+    @Schema(example = "TS-PSY001-2025-03-10-MORNING-00")
+    private String timeSlotId;
+    @Schema(example = "2025-03-10")
+    private LocalDate slotDate;
+    @Schema(example = "08:00:00")
+    private LocalTime startTime;
+    @Schema(example = "08:30:00")
+    private LocalTime endTime;
+    private int maxCapacity;
+    private int currentBookings;
+    @Schema(example = "PSY001")
+    private String psychologistId;
+    @Schema(example = "Jane Doe")
+    private String psychologistName;
+}
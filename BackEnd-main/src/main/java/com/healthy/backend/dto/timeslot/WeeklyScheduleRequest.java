@@ -0,0 +1,25 @@
+package com.healthy.backend.dto.timeslot;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class WeeklyScheduleRequest {
+    @NotNull
+    @Schema(description = "Default slot IDs to open on each weekday",
+            example = "{\"MONDAY\": [\"MORNING-00\", \"MORNING-01\"], \"WEDNESDAY\": [\"AFTERNOON-02\"]}")
+    private Map<DayOfWeek, List<String>> days;
+
+    @Schema(description = "Dates on which the template is skipped", example = "[\"2025-04-30\"]")
+    private List<LocalDate> exceptionDates;
+}
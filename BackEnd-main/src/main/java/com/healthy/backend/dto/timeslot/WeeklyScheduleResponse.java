@@ -0,0 +1,31 @@
+package com.healthy.backend.dto.timeslot;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WeeklyScheduleResponse {
+    @Schema(example = "PSY001")
+    private String psychologistId;
+
+    private Map<DayOfWeek, List<String>> days;
+
+    @Schema(description = "Upcoming exception dates")
+    private List<LocalDate> exceptionDates;
+
+    @Schema(description = "Time slots exist up to and including this date", example = "2025-05-04")
+    private LocalDate materializedUntil;
+}
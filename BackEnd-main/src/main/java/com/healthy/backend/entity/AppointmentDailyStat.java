@@ -0,0 +1,39 @@
+package com.healthy.backend.entity;
+
+import com.healthy.backend.enums.AppointmentStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "AppointmentDailyStats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_appointment_daily_stat",
+                columnNames = {"StatDate", "DepartmentID", "Status"}))
+public class AppointmentDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "StatID")
+    private Long statID;
+
+    // Ngày tạo appointment (Appointments.CreatedAt)
+    @Column(name = "StatDate", nullable = false)
+    private LocalDate statDate;
+
+    // Department của psychologist; '' khi psychologist chưa có department
+    @Column(name = "DepartmentID", length = 36, nullable = false)
+    private String departmentID;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "Status", length = 20, nullable = false)
+    private AppointmentStatus status;
+
+    @Column(name = "AppointmentCount", nullable = false)
+    private long appointmentCount;
+}
@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -13,7 +14,12 @@ import java.util.List;
 @Getter
 @Setter
 @AllArgsConstructor
-@Table(name = "Appointments")
+@Table(name = "Appointments", indexes = {
+        @Index(name = "idx_appointments_created_status", columnList = "CreatedAt, Status"),
+        @Index(name = "idx_appointments_slotdate_id", columnList = "SlotDate, AppointmentID"),
+        @Index(name = "idx_appointments_student_slotdate_id", columnList = "StudentID, SlotDate, AppointmentID"),
+        @Index(name = "idx_appointments_psychologist_slotdate_id", columnList = "PsychologistID, SlotDate, AppointmentID")
+})
 public class Appointments {
 
     @Id
@@ -23,6 +29,11 @@ public class Appointments {
     @Column(name = "TimeSlotsID", length = 36)
     private String timeSlotsID;
 
+    // Bản sao TimeSlots.slotDate, cập nhật cùng timeSlotsID: trang lọc lịch hẹn sắp và lọc theo
+    // (SlotDate, AppointmentID) trên một bảng nên đi thẳng theo index, không join/filesort mỗi trang
+    @Column(name = "SlotDate")
+    private LocalDate slotDate;
+
     @Column(name = "StudentID", length = 36, nullable = false)
     private String studentID;
 
@@ -0,0 +1,27 @@
+package com.healthy.backend.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "IdSequences")
+public class IdSequence {
+
+    @Id
+    @Column(name = "Prefix", length = 3, nullable = false)
+    private String prefix;
+
+    // First number that has not been leased to any node yet
+    @Column(name = "NextValue", nullable = false)
+    private long nextValue;
+}
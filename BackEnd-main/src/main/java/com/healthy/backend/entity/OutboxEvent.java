@@ -0,0 +1,78 @@
+package com.healthy.backend.entity;
+
+import com.healthy.backend.enums.OutboxEventType;
+import com.healthy.backend.enums.OutboxStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "OutboxEvents", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "Status, NextAttemptAt")
+})
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "EventID")
+    private Long eventID;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "Type", nullable = false, length = 30)
+    private OutboxEventType type;
+
+    // Appointment that produced the event
+    @Column(name = "AggregateID", length = 36, nullable = false)
+    private String aggregateID;
+
+    @Column(name = "Payload", columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "Status", nullable = false, length = 20)
+    private OutboxStatus status;
+
+    @Column(name = "Attempts", nullable = false)
+    private int attempts;
+
+    // Due time for PENDING events, lease expiry for PROCESSING ones
+    @Column(name = "NextAttemptAt", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "LastError", length = 1000)
+    private String lastError;
+
+    @Column(name = "CreatedAt", updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "ProcessedAt")
+    private LocalDateTime processedAt;
+
+    // Tăng mỗi lần claim/ghi kết quả: lần chạy giữ bản cũ (lease đã hết, event bị claim lại) không ghi đè được.
+    // DEFAULT 0 để ddl-auto thêm cột được cho các dòng đã có
+    @Version
+    @Column(name = "Version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private long version;
+
+    public OutboxEvent(OutboxEventType type, String aggregateID, String payload) {
+        this.type = type;
+        this.aggregateID = aggregateID;
+        this.payload = payload;
+        this.status = OutboxStatus.PENDING;
+        this.attempts = 0;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+        if (nextAttemptAt == null) {
+            nextAttemptAt = createdAt;
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.healthy.backend.entity;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -10,7 +11,9 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "psychologist_kpi")
+@Table(name = "psychologist_kpi", indexes = {
+        @Index(name = "idx_kpi_year_psychologist", columnList = "year, psychologist_id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -0,0 +1,35 @@
+package com.healthy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "ScheduleExceptions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_schedule_exception_date",
+                columnNames = {"PsychologistID", "ExceptionDate"}))
+public class ScheduleException {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "ExceptionID")
+    private Long exceptionID;
+
+    @Column(name = "PsychologistID", length = 36, nullable = false)
+    private String psychologistID;
+
+    // No slots are generated from the weekly template on this date
+    @Column(name = "ExceptionDate", nullable = false)
+    private LocalDate exceptionDate;
+
+    public ScheduleException(String psychologistID, LocalDate exceptionDate) {
+        this.psychologistID = psychologistID;
+        this.exceptionDate = exceptionDate;
+    }
+}
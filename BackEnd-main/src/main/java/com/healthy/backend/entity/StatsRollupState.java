@@ -0,0 +1,33 @@
+package com.healthy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "StatsRollupState")
+public class StatsRollupState {
+
+    @Id
+    @Column(name = "Name", length = 50)
+    private String name;
+
+    // Ngày cuối cùng đã được backfill từ bảng gốc; null khi chưa chạy
+    @Column(name = "BackfilledThrough")
+    private LocalDate backfilledThrough;
+
+    // Backfill xong thì dashboard mới đọc từ rollup
+    @Column(name = "CompletedAt")
+    private LocalDateTime completedAt;
+
+    public StatsRollupState(String name) {
+        this.name = name;
+    }
+}
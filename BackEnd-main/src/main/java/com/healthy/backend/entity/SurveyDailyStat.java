@@ -0,0 +1,35 @@
+package com.healthy.backend.entity;
+
+import com.healthy.backend.enums.SurveyCategory;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "SurveyDailyStats",
+        uniqueConstraints = @UniqueConstraint(name = "uk_survey_daily_stat",
+                columnNames = {"StatDate", "Category"}))
+public class SurveyDailyStat {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "StatID")
+    private Long statID;
+
+    // Ngày tạo survey result (SurveyResult.CreatedAt)
+    @Column(name = "StatDate", nullable = false)
+    private LocalDate statDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "Category", length = 100, nullable = false)
+    private SurveyCategory category;
+
+    @Column(name = "ResultCount", nullable = false)
+    private long resultCount;
+}
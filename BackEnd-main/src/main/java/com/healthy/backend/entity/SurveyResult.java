@@ -14,7 +14,9 @@ import java.util.List;
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
-@Table(name = "SurveyResult")
+@Table(name = "SurveyResult", indexes = {
+        @Index(name = "idx_survey_result_created_survey", columnList = "CreatedAt, SurveyID")
+})
 public class SurveyResult {
 
     @Id
@@ -0,0 +1,43 @@
+package com.healthy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "SlotWaitlist",
+        uniqueConstraints = @UniqueConstraint(name = "uk_waitlist_slot_student", columnNames = {"TimeSlotsID", "StudentID"}),
+        indexes = @Index(name = "idx_waitlist_slot_entry", columnList = "TimeSlotsID, EntryID"))
+public class WaitlistEntry {
+
+    // Tăng dần theo thứ tự đăng ký nên cũng là thứ tự FIFO trong mỗi slot
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "EntryID")
+    private Long entryID;
+
+    @Column(name = "TimeSlotsID", length = 36, nullable = false)
+    private String timeSlotsID;
+
+    @Column(name = "StudentID", length = 36, nullable = false)
+    private String studentID;
+
+    @Column(name = "CreatedAt", updatable = false)
+    private LocalDateTime createdAt;
+
+    public WaitlistEntry(String timeSlotsID, String studentID) {
+        this.timeSlotsID = timeSlotsID;
+        this.studentID = studentID;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
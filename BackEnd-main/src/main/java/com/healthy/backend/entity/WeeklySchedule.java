@@ -0,0 +1,38 @@
+package com.healthy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "WeeklySchedules")
+public class WeeklySchedule {
+
+    @Id
+    @Column(name = "PsychologistID", length = 36)
+    private String psychologistID;
+
+    // Slots are generated up to and including this date; null until the first run
+    @Column(name = "MaterializedUntil")
+    private LocalDate materializedUntil;
+
+    @Column(name = "UpdatedAt")
+    private LocalDateTime updatedAt;
+
+    public WeeklySchedule(String psychologistID) {
+        this.psychologistID = psychologistID;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+}
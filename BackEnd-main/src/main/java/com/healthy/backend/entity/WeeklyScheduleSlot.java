@@ -0,0 +1,39 @@
+package com.healthy.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.DayOfWeek;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@Table(name = "WeeklyScheduleSlots",
+        uniqueConstraints = @UniqueConstraint(name = "uk_schedule_day_slot",
+                columnNames = {"PsychologistID", "DayOfWeek", "DefaultSlotID"}))
+public class WeeklyScheduleSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "EntryID")
+    private Long entryID;
+
+    @Column(name = "PsychologistID", length = 36, nullable = false)
+    private String psychologistID;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "DayOfWeek", length = 10, nullable = false)
+    private DayOfWeek dayOfWeek;
+
+    @Column(name = "DefaultSlotID", nullable = false)
+    private String defaultSlotID;
+
+    public WeeklyScheduleSlot(String psychologistID, DayOfWeek dayOfWeek, String defaultSlotID) {
+        this.psychologistID = psychologistID;
+        this.dayOfWeek = dayOfWeek;
+        this.defaultSlotID = defaultSlotID;
+    }
+}
@@ -0,0 +1,8 @@
+package com.healthy.backend.enums;
+
+public enum OutboxEventType {
+    APPOINTMENT_EMAIL,
+    APPOINTMENT_NOTIFICATION,
+    KPI_SLOT_BOOKED,
+    KPI_SLOT_RELEASED
+}
@@ -7,6 +7,7 @@ import com.healthy.backend.enums.*;
 import com.healthy.backend.repository.*;
 import com.healthy.backend.service.AuthenticationService;
 import com.healthy.backend.service.GeneralService;
+import com.healthy.backend.service.IdCodec;
 import com.healthy.backend.service.SurveyService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
@@ -43,6 +44,8 @@ public class DataInitializer implements CommandLineRunner {
     private final AuthenticationService authenticationService;
     private final SurveyService surveyService;
 
+    private static final String SEED_RESULT_ID = IdCodec.encode(Identifier.SRS, 1);
+
     private void initialize() {
         registerUsers();
         System.out.println("Users registered");
@@ -373,7 +376,7 @@ public class DataInitializer implements CommandLineRunner {
     }
 
     private void initializeSurveyResults() {
-        surveyResultRepository.save(new SurveyResult("SRS001", "SUV001", "STU001"));
+        surveyResultRepository.save(new SurveyResult(SEED_RESULT_ID, "SUV001", "STU001"));
         // surveyResultRepository.save(new SurveyResult("SRS002", "SUV002", "STU001"));
         // surveyResultRepository.save(new SurveyResult("SRS003", "SUV003", "STU001"));
 
@@ -387,16 +390,16 @@ public class DataInitializer implements CommandLineRunner {
     }
 
     private void initializeSurveyResultsChoices() {
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR001", "SQO002"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR002", "SQO006"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR003", "SQO012"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR004", "SQO017"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR005", "SQO021"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR006", "SQO026"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR007", "SQO031"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR008", "SQO036"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR009", "SQO041"));
-        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS001", "SQR010", "SQO046"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR001", "SQO002"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR002", "SQO006"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR003", "SQO012"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR004", "SQO017"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR005", "SQO021"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR006", "SQO026"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR007", "SQO031"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR008", "SQO036"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR009", "SQO041"));
+        surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices(SEED_RESULT_ID, "SQR010", "SQO046"));
 
         // surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS002", "SQR011", "SQO051"));
         // surveyQuestionOptionsChoicesRepository.save(new SurveyQuestionOptionsChoices("SRS002", "SQR012", "SQO055"));
@@ -493,10 +496,10 @@ public class DataInitializer implements CommandLineRunner {
     }
 
     private void initializeLogs() {
-        userLogRepository.save(new UserLogs("LOG001", userRepository.findByEmail("psychologist@example.com").getUserId(), "192.168.0.1"));
-        userLogRepository.save(new UserLogs("LOG002", userRepository.findByEmail("student2@example.com").getUserId(), "244.178.44.111"));
-        userLogRepository.save(new UserLogs("LOG003", userRepository.findByEmail("psychologist@example.com").getUserId(), "38.0.101.76"));
-        userLogRepository.save(new UserLogs("LOG004", userRepository.findByEmail("parent2@example.com").getUserId(), "89.0.142.86"));
+        userLogRepository.save(new UserLogs(__.generateUserLogID(), userRepository.findByEmail("psychologist@example.com").getUserId(), "192.168.0.1"));
+        userLogRepository.save(new UserLogs(__.generateUserLogID(), userRepository.findByEmail("student2@example.com").getUserId(), "244.178.44.111"));
+        userLogRepository.save(new UserLogs(__.generateUserLogID(), userRepository.findByEmail("psychologist@example.com").getUserId(), "38.0.101.76"));
+        userLogRepository.save(new UserLogs(__.generateUserLogID(), userRepository.findByEmail("parent2@example.com").getUserId(), "89.0.142.86"));
     }
 
 
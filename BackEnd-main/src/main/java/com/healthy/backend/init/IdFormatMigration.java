@@ -0,0 +1,77 @@
+package com.healthy.backend.init;
+
+import com.healthy.backend.enums.Identifier;
+import com.healthy.backend.service.IdCodec;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Rewrites legacy keys such as APP1000 into the fixed-width {@link IdCodec} format, together with
+ * every column that references them. Only keys still in the old "prefix + decimal" shape are
+ * touched, so the migration is a no-op once it has run. Runs before {@link DataInitializer}.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class IdFormatMigration implements CommandLineRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdFormatMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private record KeyColumn(String table, String column) {
+    }
+
+    private record EncodedKey(Identifier prefix, KeyColumn primaryKey, List<KeyColumn> references) {
+    }
+
+    private static final List<EncodedKey> ENCODED_KEYS = List.of(
+            new EncodedKey(Identifier.APP, new KeyColumn("Appointments", "AppointmentID"), List.of(
+                    new KeyColumn("Notifications", "AppointmentID"),
+                    new KeyColumn("comments", "AppointmentID"))),
+            new EncodedKey(Identifier.NOT, new KeyColumn("Notifications", "NotificationID"), List.of()),
+            new EncodedKey(Identifier.SRS, new KeyColumn("SurveyResult", "ResultID"), List.of(
+                    new KeyColumn("SurveyQuestionOptionsChoices", "ResultID"))),
+            new EncodedKey(Identifier.LOG, new KeyColumn("UserLogs", "LogID"), List.of())
+    );
+
+    @Override
+    @Transactional
+    public void run(String... args) {
+        // Parent and child keys are rewritten by separate statements, so the constraints are
+        // suspended for this connection only until both sides match again
+        jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS = 0");
+        try {
+            for (EncodedKey key : ENCODED_KEYS) {
+                int rewritten = rewrite(key.prefix(), key.primaryKey());
+                if (rewritten == 0) {
+                    continue;
+                }
+                for (KeyColumn reference : key.references()) {
+                    rewrite(key.prefix(), reference);
+                }
+                logger.info("Rewrote {} {} keys to the fixed-width format", rewritten, key.prefix());
+            }
+        } finally {
+            jdbcTemplate.execute("SET FOREIGN_KEY_CHECKS = 1");
+        }
+    }
+
+    private int rewrite(Identifier prefix, KeyColumn keyColumn) {
+        // Legacy bodies have at most 6 digits; 7 digit bodies are indistinguishable from encoded ones
+        String sql = String.format(
+                "UPDATE %1$s SET %2$s = CONCAT('%3$s', LPAD(CONV(SUBSTRING(%2$s, 4), 10, 32), %4$d, '0')) " +
+                        "WHERE %2$s REGEXP '^%3$s[0-9]{1,6}$'",
+                keyColumn.table(), keyColumn.column(), prefix, IdCodec.BODY_WIDTH);
+        return jdbcTemplate.update(sql);
+    }
+}
@@ -1,11 +1,11 @@
 package com.healthy.backend.mapper;
 
 import com.healthy.backend.dto.survey.*;
-import com.healthy.backend.entity.SurveyQuestionOptions;
 import com.healthy.backend.entity.SurveyQuestionOptionsChoices;
-import com.healthy.backend.entity.SurveyQuestions;
 import com.healthy.backend.entity.Surveys;
 import com.healthy.backend.exception.ResourceNotFoundException;
+import com.healthy.backend.survey.SurveyDefinition;
+import com.healthy.backend.survey.SurveyOverview;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -16,19 +16,19 @@ import java.util.stream.Collectors;
 public class SurveyMapper {
 
 
-    public SurveysResponse buildManagerSurveysResponse(Surveys survey, int numberOfQuestions, String completeStatus, String count) {
+    public SurveysResponse buildManagerSurveysResponse(SurveyOverview survey, String completeStatus, String count) {
         return SurveysResponse.builder()
-                .id(survey.getSurveyID())
-                .title(survey.getSurveyName())
-                .description(survey.getDescription())
-                .categoryID(survey.getCategory().getCategoryID())
-                .duration(survey.getDuration())
-                .numberOfQuestions(numberOfQuestions)
-                .categoryName(survey.getCategory().getCategoryName().name())
-                .status(String.valueOf(survey.getStatus()))
-                .detailedDescription(survey.getDetails())
-                .createdAt(survey.getCreatedAt().toString())
-                .createBy(survey.getCreator().getFullName())
+                .id(survey.surveyId())
+                .title(survey.surveyName())
+                .description(survey.description())
+                .categoryID(survey.categoryId())
+                .duration(survey.duration())
+                .numberOfQuestions((int) survey.questionCount())
+                .categoryName(survey.categoryName() == null ? null : survey.categoryName().name())
+                .status(String.valueOf(survey.status()))
+                .detailedDescription(survey.details())
+                .createdAt(String.valueOf(survey.createdAt()))
+                .createBy(survey.creatorName())
                 .completeStatus(completeStatus)
                 .studentComplete(count)
                 .build();
@@ -51,24 +51,24 @@ public class SurveyMapper {
                 .score(score)
                 .build();
     }
-    public SurveysResponse buildSurveysResponse1(Surveys survey, int numberOfQuestions, String completeStatus, List<StatusStudent> status) {
+
+    public SurveysResponse buildSurveysResponse1(SurveyOverview survey, String completeStatus, List<StatusStudent> status) {
         return SurveysResponse.builder()
-                .id(survey.getSurveyID())
-                .title(survey.getSurveyName())
-                .description(survey.getDescription())
-                .categoryID(survey.getCategory().getCategoryID())
-                .duration(survey.getDuration())
-                .numberOfQuestions(numberOfQuestions)
-                .categoryName(survey.getCategory().getCategoryName().name())
-                .status(String.valueOf(survey.getStatus()))
-                .detailedDescription(survey.getDetails())
-                .createdAt(survey.getCreatedAt().toString())
-                .createBy(survey.getCreator().getFullName())
+                .id(survey.surveyId())
+                .title(survey.surveyName())
+                .description(survey.description())
+                .categoryID(survey.categoryId())
+                .duration(survey.duration())
+                .numberOfQuestions((int) survey.questionCount())
+                .categoryName(survey.categoryName() == null ? null : survey.categoryName().name())
+                .status(String.valueOf(survey.status()))
+                .detailedDescription(survey.details())
+                .createdAt(String.valueOf(survey.createdAt()))
+                .createBy(survey.creatorName())
                 .completeStatus(completeStatus)
                 .statusStudent(status)
                 .build();
-        }           
-
+    }
 
     public StatusStudent maptoResultStudent1(String status, String score, String studentId) {
         return StatusStudent.builder()
@@ -160,24 +160,24 @@ public class SurveyMapper {
 
     public SurveyQuestionResponse buildSurveyQuestionResponse(
             List<QuestionResponse> questionResponseList,
-            Surveys survey
+            SurveyDefinition survey
     ) {
         return SurveyQuestionResponse.builder()
-                .surveyId(survey.getSurveyID())
-                .title(survey.getSurveyName())
-                .description(survey.getDescription())
+                .surveyId(survey.surveyId())
+                .title(survey.title())
+                .description(survey.description())
                 .questionList(questionResponseList)
                 .build();
     }
 
     public SurveyQuestionResponse buildSurveyResultResponse(
             List<QuestionResponse> questionResponseList,
-            Surveys survey, String completeStatus,String score
+            SurveyDefinition survey, String completeStatus, String score
     ) {
         return SurveyQuestionResponse.builder()
-                .surveyId(survey.getSurveyID())
-                .title(survey.getSurveyName())
-                .description(survey.getDescription())
+                .surveyId(survey.surveyId())
+                .title(survey.title())
+                .description(survey.description())
                 .numberOfQuestions(questionResponseList.size())
                 .questionList(questionResponseList)
                 .completeStatus(completeStatus)
@@ -187,21 +187,22 @@ public class SurveyMapper {
 
     public QuestionResponse buildQuestionResponse(
             List<QuestionOption> questionOption,
-            SurveyQuestions surveyQuestions,
+            SurveyDefinition.Question question,
             Integer index) {
         return QuestionResponse.builder()
                 .id(index.toString())
-                .questionText(surveyQuestions.getQuestionText())
-                .questionCategory(surveyQuestions.getCategory().getCategoryName().name())
+                .questionText(question.text())
+                .questionCategory(question.categoryName())
                 .questionOptions(questionOption)
                 .build();
     }
 
-    public QuestionOption buildNewQuestionOption(SurveyQuestionOptions options) {
+    // QuestionOption bị set checked theo từng học sinh nên mỗi lần trả về phải tạo mới
+    public QuestionOption buildNewQuestionOption(SurveyDefinition.Option option) {
         return QuestionOption.builder()
-                .answerID(options.getOptionID())
-                .label(options.getOptionText())
-                .value(options.getScore())
+                .answerID(option.optionId())
+                .label(option.text())
+                .value(option.score())
                 .checked(false)
                 .build();
     }
@@ -0,0 +1,55 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.entity.AppointmentDailyStat;
+import com.healthy.backend.enums.AppointmentStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface AppointmentDailyStatRepository extends JpaRepository<AppointmentDailyStat, Long> {
+
+    // Cộng delta vào bucket (ngày, department, status), tạo bucket nếu chưa có
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO AppointmentDailyStats (StatDate, DepartmentID, Status, AppointmentCount) " +
+            "VALUES (:statDate, :departmentId, :status, :delta) " +
+            "ON DUPLICATE KEY UPDATE AppointmentCount = AppointmentCount + :delta", nativeQuery = true)
+    void increment(@Param("statDate") LocalDate statDate,
+                   @Param("departmentId") String departmentId,
+                   @Param("status") String status,
+                   @Param("delta") long delta);
+
+    @Modifying
+    @Query("DELETE FROM AppointmentDailyStat s WHERE s.statDate BETWEEN :from AND :to")
+    void deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    // Dựng lại bucket từ Appointments cho các appointment tạo trong [start, end)
+    @Modifying
+    @Query(value = "INSERT INTO AppointmentDailyStats (StatDate, DepartmentID, Status, AppointmentCount) " +
+            "SELECT DATE(a.CreatedAt), COALESCE(p.DepartmentID, ''), a.Status, COUNT(*) " +
+            "FROM Appointments a JOIN Psychologists p ON p.PsychologistID = a.PsychologistID " +
+            "WHERE a.CreatedAt >= :start AND a.CreatedAt < :end AND a.Status IS NOT NULL " +
+            "GROUP BY DATE(a.CreatedAt), COALESCE(p.DepartmentID, ''), a.Status", nativeQuery = true)
+    void rebuildBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT s.status, SUM(s.appointmentCount) FROM AppointmentDailyStat s " +
+            "WHERE s.statDate BETWEEN :from AND :to " +
+            "GROUP BY s.status")
+    List<Object[]> sumByStatusBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT d.name, SUM(s.appointmentCount) FROM AppointmentDailyStat s " +
+            "JOIN Department d ON d.departmentID = s.departmentID " +
+            "WHERE s.status = :status AND s.statDate BETWEEN :from AND :to " +
+            "GROUP BY d.name")
+    List<Object[]> sumByDepartmentBetween(@Param("status") AppointmentStatus status,
+                                          @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to);
+}
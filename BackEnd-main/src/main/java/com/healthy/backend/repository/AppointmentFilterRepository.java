@@ -0,0 +1,21 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.dto.appointment.AppointmentResponse;
+import com.healthy.backend.enums.AppointmentStatus;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface AppointmentFilterRepository {
+
+    // Keyset page ordered by (slotDate, appointmentID); null filters are left out of the WHERE clause
+    List<AppointmentResponse> filterPage(String studentId,
+                                         String psychologistId,
+                                         LocalDate startDate,
+                                         LocalDate endDate,
+                                         Collection<AppointmentStatus> statuses,
+                                         LocalDate afterDate,
+                                         String afterId,
+                                         int limit);
+}
@@ -0,0 +1,85 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.dto.appointment.AppointmentResponse;
+import com.healthy.backend.entity.Appointments;
+import com.healthy.backend.entity.Psychologists;
+import com.healthy.backend.entity.Students;
+import com.healthy.backend.entity.TimeSlots;
+import com.healthy.backend.entity.Users;
+import com.healthy.backend.enums.AppointmentStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+class AppointmentFilterRepositoryImpl implements AppointmentFilterRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<AppointmentResponse> filterPage(String studentId,
+                                                String psychologistId,
+                                                LocalDate startDate,
+                                                LocalDate endDate,
+                                                Collection<AppointmentStatus> statuses,
+                                                LocalDate afterDate,
+                                                String afterId,
+                                                int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<AppointmentResponse> query = cb.createQuery(AppointmentResponse.class);
+        Root<Appointments> a = query.from(Appointments.class);
+        Join<Appointments, TimeSlots> ts = a.join("timeSlot");
+        Join<Students, Users> su = a.<Appointments, Students>join("student").join("user");
+        Join<Psychologists, Users> pu = a.<Appointments, Psychologists>join("psychologist").join("user");
+
+        // Lọc, sắp và cursor đều trên cột của Appointments: (StudentID|PsychologistID, SlotDate, AppointmentID)
+        // là index, các join chỉ lấy tên và giờ cho từng dòng của trang
+        Path<LocalDate> slotDate = a.get("slotDate");
+        Path<String> appointmentId = a.get("appointmentID");
+
+        List<Predicate> where = new ArrayList<>();
+        where.add(cb.isNotNull(slotDate));
+        if (studentId != null) {
+            where.add(cb.equal(a.get("studentID"), studentId));
+        }
+        if (psychologistId != null) {
+            where.add(cb.equal(a.get("psychologistID"), psychologistId));
+        }
+        if (startDate != null) {
+            where.add(cb.greaterThanOrEqualTo(slotDate, startDate));
+        }
+        if (endDate != null) {
+            where.add(cb.lessThanOrEqualTo(slotDate, endDate));
+        }
+        if (statuses != null) {
+            where.add(a.get("status").in(statuses));
+        }
+        if (afterDate != null) {
+            where.add(cb.or(
+                    cb.greaterThan(slotDate, afterDate),
+                    cb.and(cb.equal(slotDate, afterDate), cb.greaterThan(appointmentId, afterId))));
+        }
+
+        query.select(cb.construct(AppointmentResponse.class,
+                        appointmentId, a.get("studentID"), su.get("fullName"),
+                        a.get("psychologistID"), pu.get("fullName"), a.get("status"),
+                        a.get("createdAt"), a.get("updatedAt"),
+                        slotDate, ts.get("startTime"), ts.get("endTime")))
+                .where(where.toArray(Predicate[]::new))
+                .orderBy(cb.asc(slotDate), cb.asc(appointmentId));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+}
@@ -1,23 +1,61 @@
 package com.healthy.backend.repository;
 
+import com.healthy.backend.dto.manager.DepartmentStatsResponse;
+import com.healthy.backend.dto.manager.PsychologistStatsResponse;
 import com.healthy.backend.entity.Appointments;
 import com.healthy.backend.enums.AppointmentStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface AppointmentRepository extends JpaRepository<Appointments, String> , JpaSpecificationExecutor<Appointments> {
+public interface AppointmentRepository extends JpaRepository<Appointments, String> , JpaSpecificationExecutor<Appointments>,
+        AppointmentFilterRepository {
 
     List<Appointments> findByStudentID(String studentID);
     List<Appointments> findByPsychologistID(String psychologistID);
     @Query("SELECT a.appointmentID FROM Appointments a ORDER BY a.appointmentID DESC LIMIT 1")
     String findLastAppointmentId();
 
+    // Everything the appointment responses read is fetched in the same statement; student and
+    // psychologist are EAGER on Appointments, so leaving them out would cost one select per row
+    String WITH_DETAILS = "SELECT a FROM Appointments a " +
+            "LEFT JOIN FETCH a.timeSlot " +
+            "JOIN FETCH a.student s JOIN FETCH s.user LEFT JOIN FETCH s.parents " +
+            "JOIN FETCH a.psychologist p JOIN FETCH p.user LEFT JOIN FETCH p.department ";
+
+    @Query(WITH_DETAILS)
+    List<Appointments> findAllWithDetails();
+
+    @Query(WITH_DETAILS + "WHERE a.appointmentID = :id")
+    Optional<Appointments> findByIdWithDetails(@Param("id") String id);
+
+    @Query(WITH_DETAILS + "WHERE a.studentID = :studentId")
+    List<Appointments> findByStudentIDWithDetails(@Param("studentId") String studentId);
+
+    @Query(WITH_DETAILS + "WHERE a.psychologistID = :psychologistId")
+    List<Appointments> findByPsychologistIDWithDetails(@Param("psychologistId") String psychologistId);
+
+    // Appointments tạo trước khi có cột SlotDate; filterPage bỏ qua dòng SlotDate null
+    @Modifying
+    @Query("UPDATE Appointments a SET a.slotDate = " +
+            "(SELECT ts.slotDate FROM TimeSlots ts WHERE ts.timeSlotsID = a.timeSlotsID) " +
+            "WHERE a.slotDate IS NULL AND a.timeSlotsID IS NOT NULL")
+    int backfillSlotDates();
+
 
     @Query("SELECT CASE WHEN COUNT(a) > 0 THEN true ELSE false END " +
             "FROM Appointments a " +
@@ -32,27 +70,96 @@ public interface AppointmentRepository extends JpaRepository<Appointments, Strin
 
 
 
-    @Query("SELECT COUNT(a) FROM Appointments a " +
-            "WHERE (:startDate IS NULL OR a.createdAt >= :startDate) " +
-            "AND (:endDate IS NULL OR a.createdAt <= :endDate)")
-    Long countByDateRange(@Param("startDate") LocalDateTime startDate,
-                          @Param("endDate") LocalDateTime endDate);
+    @Query("SELECT a.timeSlotsID FROM Appointments a " +
+            "WHERE a.studentID = :studentId " +
+            "AND a.status != com.healthy.backend.enums.AppointmentStatus.CANCELLED")
+    List<String> findActiveTimeSlotIdsByStudentID(@Param("studentId") String studentId);
+
+    // One row per status for appointments created in [start, end); served by idx_appointments_created_status
+    @Query("SELECT a.status, COUNT(a) FROM Appointments a " +
+            "WHERE a.createdAt >= :start AND a.createdAt < :end " +
+            "GROUP BY a.status")
+    List<Object[]> countByStatusBetween(@Param("start") LocalDateTime start,
+                                        @Param("end") LocalDateTime end);
+
+    @Query("SELECT a.status, COUNT(a) FROM Appointments a GROUP BY a.status")
+    List<Object[]> countByStatus();
+
+    @Query("SELECT MIN(a.createdAt) FROM Appointments a")
+    LocalDateTime findEarliestCreatedAt();
+
+    // (appointmentID, psychologistID, departmentID, createdAt, checkInTime, checkOutTime, slotDate, startTime)
+    // of completed sessions, streamed like streamForExport so the whole table is never held in memory
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query("SELECT a.appointmentID, a.psychologistID, p.departmentID, a.createdAt, a.checkInTime, a.checkOutTime, " +
+            "ts.slotDate, ts.startTime " +
+            "FROM Appointments a JOIN a.psychologist p JOIN a.timeSlot ts " +
+            "WHERE a.status = com.healthy.backend.enums.AppointmentStatus.COMPLETED")
+    Stream<Object[]> streamCompletedSessionTimes();
+
+    @Query("SELECT a.appointmentID FROM Appointments a " +
+            "WHERE a.appointmentID IN :ids AND a.status = com.healthy.backend.enums.AppointmentStatus.COMPLETED")
+    List<String> findCompletedIdsIn(@Param("ids") Collection<String> ids);
+
+    // One row per psychologist (also those without appointments); ordered by the caller's JpaSort.
+    // List instead of Page: the pageable only adds LIMIT/OFFSET, no COUNT query is issued
+    @Query("SELECT new com.healthy.backend.dto.manager.PsychologistStatsResponse(" +
+            "p.psychologistID, u.fullName, COUNT(a), AVG(a.rating), " +
+            "SUM(CASE WHEN a.status = com.healthy.backend.enums.AppointmentStatus.COMPLETED THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.status = com.healthy.backend.enums.AppointmentStatus.CANCELLED THEN 1 ELSE 0 END)) " +
+            "FROM Psychologists p JOIN p.user u " +
+            "LEFT JOIN Appointments a ON a.psychologistID = p.psychologistID " +
+            "AND a.createdAt >= :start AND a.createdAt < :end " +
+            "WHERE (:departmentId IS NULL OR p.departmentID = :departmentId) " +
+            "GROUP BY p.psychologistID, u.fullName")
+    List<PsychologistStatsResponse> findPsychologistStats(@Param("start") LocalDateTime start,
+                                                          @Param("end") LocalDateTime end,
+                                                          @Param("departmentId") String departmentId,
+                                                          Pageable pageable);
+
+    // (department name, count) for appointments created in [start, end)
+    @Query("SELECT d.name, COUNT(a) FROM Appointments a " +
+            "JOIN a.psychologist p JOIN p.department d " +
+            "WHERE a.status = :status AND a.createdAt >= :start AND a.createdAt < :end " +
+            "GROUP BY d.name")
+    List<Object[]> countByDepartmentBetween(@Param("status") AppointmentStatus status,
+                                            @Param("start") LocalDateTime start,
+                                            @Param("end") LocalDateTime end);
+
+    // One row per department (also those without appointments in the period)
+    @Query("SELECT new com.healthy.backend.dto.manager.DepartmentStatsResponse(" +
+            "d.departmentID, d.name, COUNT(a), " +
+            "SUM(CASE WHEN a.status = com.healthy.backend.enums.AppointmentStatus.COMPLETED THEN 1 ELSE 0 END), " +
+            "SUM(CASE WHEN a.status = com.healthy.backend.enums.AppointmentStatus.CANCELLED THEN 1 ELSE 0 END), " +
+            "AVG(a.rating)) " +
+            "FROM Department d " +
+            "LEFT JOIN Psychologists p ON p.departmentID = d.departmentID " +
+            "LEFT JOIN Appointments a ON a.psychologistID = p.psychologistID " +
+            "AND a.createdAt >= :start AND a.createdAt < :end " +
+            "GROUP BY d.departmentID, d.name " +
+            "ORDER BY d.name")
+    List<DepartmentStatsResponse> findDepartmentStats(@Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end);
+
+    // Export: forward-only cursor (MySQL streams row by row when fetch size is Integer.MIN_VALUE),
+    // rows are plain projections so nothing accumulates in the persistence context.
+    // First download and resume are separate statements so neither carries an "IS NULL OR" predicate
+    String EXPORT_SELECT = "SELECT a.appointmentID, a.studentID, su.fullName, a.psychologistID, pu.fullName, a.status, " +
+            "a.createdAt, ts.slotDate, ts.startTime, ts.endTime, a.checkInTime, a.checkOutTime, a.rating " +
+            "FROM Appointments a " +
+            "LEFT JOIN a.timeSlot ts " +
+            "JOIN a.student s JOIN s.user su " +
+            "JOIN a.psychologist p JOIN p.user pu " +
+            "WHERE a.createdAt >= :start AND a.createdAt < :end ";
 
-    @Query("SELECT COUNT(a) FROM Appointments a " +
-            "WHERE a.status = :status " +
-            "AND (:startDate IS NULL OR a.createdAt >= :startDate) " +
-            "AND (:endDate IS NULL OR a.createdAt <= :endDate)")
-    Long countByStatusAndDateRange(@Param("status") AppointmentStatus status,
-                                   @Param("startDate") LocalDateTime startDate,
-                                   @Param("endDate") LocalDateTime endDate);
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(EXPORT_SELECT + "ORDER BY a.appointmentID")
+    Stream<Object[]> streamForExport(@Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
 
-    @Query("SELECT a FROM Appointments a " +
-            "WHERE a.status = :status " +
-            "AND (:start IS NULL OR a.createdAt >= :start) " +
-            "AND (:end IS NULL OR a.createdAt <= :end)")
-    List<Appointments> findByStatusAndDateRange(
-            @Param("status") AppointmentStatus status,
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end
-    );
-} 
\ No newline at end of file
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(EXPORT_SELECT + "AND a.appointmentID > :afterId ORDER BY a.appointmentID")
+    Stream<Object[]> streamForExportAfter(@Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end,
+                                          @Param("afterId") String afterId);
+}
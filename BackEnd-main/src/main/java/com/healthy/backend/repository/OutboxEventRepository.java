@@ -0,0 +1,32 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.entity.OutboxEvent;
+import com.healthy.backend.enums.OutboxEventType;
+import com.healthy.backend.enums.OutboxStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // lock.timeout = -2 là SKIP LOCKED: nhiều node cùng drain mà không tranh nhau một batch
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status IN :statuses AND e.nextAttemptAt <= :now ORDER BY e.eventID")
+    List<OutboxEvent> findDueForUpdate(@Param("statuses") Collection<OutboxStatus> statuses,
+                                       @Param("now") LocalDateTime now,
+                                       Pageable pageable);
+
+    boolean existsByTypeInAndStatusIn(Collection<OutboxEventType> types, Collection<OutboxStatus> statuses);
+}
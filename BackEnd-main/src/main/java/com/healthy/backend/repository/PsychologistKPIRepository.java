@@ -1,9 +1,86 @@
 package com.healthy.backend.repository;
 
 import com.healthy.backend.entity.PsychologistKPI;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface PsychologistKPIRepository extends JpaRepository<PsychologistKPI, String> {
     PsychologistKPI findByPsychologistIdAndMonthAndYear(String psychologistId, int month, int year);
 
-}
\ No newline at end of file
+    @Query("SELECT k.id FROM PsychologistKPI k " +
+            "WHERE k.year = :year AND k.month IN :months AND k.psychologistId IN :psychologistIds")
+    List<String> findIds(@Param("psychologistIds") Collection<String> psychologistIds,
+                         @Param("year") int year,
+                         @Param("months") Collection<Integer> months);
+
+    // Cộng/trừ ngay trong DB, không đọc-sửa-ghi nên không mất cập nhật khi nhiều worker cùng chạy
+    @Modifying
+    @Query("UPDATE PsychologistKPI k SET k.achievedSlots = k.achievedSlots + 1 " +
+            "WHERE k.psychologistId = :psychologistId AND k.month = :month AND k.year = :year")
+    int incrementAchievedSlots(@Param("psychologistId") String psychologistId,
+                               @Param("month") int month,
+                               @Param("year") int year);
+
+    @Modifying
+    @Query("UPDATE PsychologistKPI k SET k.achievedSlots = k.achievedSlots - 1 " +
+            "WHERE k.psychologistId = :psychologistId AND k.month = :month AND k.year = :year " +
+            "AND k.achievedSlots > 0")
+    int decrementAchievedSlots(@Param("psychologistId") String psychologistId,
+                               @Param("month") int month,
+                               @Param("year") int year);
+
+    // Đếm lại achievedSlots của cả năm từ các appointment chưa hủy, theo tháng của slot
+    @Modifying
+    @Query(value = "UPDATE psychologist_kpi k " +
+            "LEFT JOIN (SELECT a.PsychologistID AS psychologist_id, MONTH(ts.SlotDate) AS slot_month, COUNT(*) AS booked " +
+            "FROM Appointments a JOIN TimeSlots ts ON ts.TimeSlotsID = a.TimeSlotsID " +
+            "WHERE a.Status <> 'CANCELLED' AND ts.SlotDate >= :from AND ts.SlotDate < :to " +
+            "GROUP BY a.PsychologistID, MONTH(ts.SlotDate)) x " +
+            "ON x.psychologist_id = k.psychologist_id AND x.slot_month = k.month " +
+            "SET k.achieved_slots = COALESCE(x.booked, 0) " +
+            "WHERE k.year = :year", nativeQuery = true)
+    int reconcileAchievedSlots(@Param("year") int year,
+                               @Param("from") LocalDate from,
+                               @Param("to") LocalDate to);
+
+    @Modifying
+    @Query("UPDATE PsychologistKPI k SET k.targetSlots = :targetSlots " +
+            "WHERE k.year = :year AND k.month IN :months AND k.psychologistId IN :psychologistIds")
+    int updateTargets(@Param("psychologistIds") Collection<String> psychologistIds,
+                      @Param("year") int year,
+                      @Param("months") Collection<Integer> months,
+                      @Param("targetSlots") int targetSlots);
+
+    // Export, see AppointmentRepository.streamForExport. Months fromYear/fromMonth .. toYear/toMonth:
+    // the year BETWEEN range can use idx_kpi_year_psychologist, the month checks only trim the two edge years
+    String EXPORT_SELECT = "SELECT k.id, k.psychologistId, k.month, k.year, k.targetSlots, k.achievedSlots " +
+            "FROM PsychologistKPI k " +
+            "WHERE k.year BETWEEN :fromYear AND :toYear " +
+            "AND (k.year > :fromYear OR k.month >= :fromMonth) " +
+            "AND (k.year < :toYear OR k.month <= :toMonth) ";
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(EXPORT_SELECT + "ORDER BY k.id")
+    Stream<Object[]> streamForExport(@Param("fromYear") int fromYear,
+                                     @Param("fromMonth") int fromMonth,
+                                     @Param("toYear") int toYear,
+                                     @Param("toMonth") int toMonth);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(EXPORT_SELECT + "AND k.id > :afterId ORDER BY k.id")
+    Stream<Object[]> streamForExportAfter(@Param("fromYear") int fromYear,
+                                          @Param("fromMonth") int fromMonth,
+                                          @Param("toYear") int toYear,
+                                          @Param("toMonth") int toMonth,
+                                          @Param("afterId") String afterId);
+}
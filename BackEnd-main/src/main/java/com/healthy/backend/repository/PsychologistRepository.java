@@ -3,6 +3,7 @@ package com.healthy.backend.repository;
 import com.healthy.backend.entity.Psychologists;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -12,9 +13,20 @@ public interface PsychologistRepository extends JpaRepository<Psychologists, Str
     Psychologists findByUserID(String userID);
     List<Psychologists> findByDepartmentDepartmentID(String departmentID);
 
+    @Query("SELECT p FROM Psychologists p JOIN FETCH p.user " +
+            "WHERE p.departmentID = :departmentId " +
+            "AND p.status = com.healthy.backend.enums.PsychologistStatus.ACTIVE")
+    List<Psychologists> findActiveByDepartmentIdWithUser(@Param("departmentId") String departmentId);
+
     @Query ("SELECT p.psychologistID FROM Psychologists p ORDER BY p.psychologistID DESC LIMIT 1")
     String findLastPsychologistId();
 
     Psychologists findByPsychologistID(String psychologistId);
 
+    @Query("SELECT p.psychologistID FROM Psychologists p")
+    List<String> findAllIds();
+
+    @Query("SELECT p.psychologistID FROM Psychologists p WHERE p.departmentID = :departmentId")
+    List<String> findIdsByDepartmentID(@Param("departmentId") String departmentId);
+
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.entity.ScheduleException;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ScheduleExceptionRepository extends JpaRepository<ScheduleException, Long> {
+
+    List<ScheduleException> findByPsychologistIDAndExceptionDateGreaterThanEqualOrderByExceptionDate(
+            String psychologistID, LocalDate from);
+
+    List<ScheduleException> findByPsychologistIDAndExceptionDateBetween(String psychologistID, LocalDate from, LocalDate to);
+
+    @Modifying
+    @Query("DELETE FROM ScheduleException e WHERE e.psychologistID = :psychologistId AND e.exceptionDate >= :from")
+    void deleteUpcoming(@Param("psychologistId") String psychologistId, @Param("from") LocalDate from);
+}
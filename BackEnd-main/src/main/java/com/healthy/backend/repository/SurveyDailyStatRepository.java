@@ -0,0 +1,47 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.entity.SurveyDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SurveyDailyStatRepository extends JpaRepository<SurveyDailyStat, Long> {
+
+    // Category lấy thẳng từ survey trong DB, không cần load Surveys/Categories
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO SurveyDailyStats (StatDate, Category, ResultCount) " +
+            "SELECT :statDate, c.CategoryName, :delta " +
+            "FROM Surveys s JOIN Categories c ON c.CategoryID = s.CategoryID " +
+            "WHERE s.SurveyID = :surveyId " +
+            "ON DUPLICATE KEY UPDATE ResultCount = ResultCount + :delta", nativeQuery = true)
+    void increment(@Param("statDate") LocalDate statDate,
+                   @Param("surveyId") String surveyId,
+                   @Param("delta") long delta);
+
+    @Modifying
+    @Query("DELETE FROM SurveyDailyStat s WHERE s.statDate BETWEEN :from AND :to")
+    void deleteBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Modifying
+    @Query(value = "INSERT INTO SurveyDailyStats (StatDate, Category, ResultCount) " +
+            "SELECT DATE(sr.CreatedAt), c.CategoryName, COUNT(*) " +
+            "FROM SurveyResult sr JOIN Surveys s ON s.SurveyID = sr.SurveyID " +
+            "JOIN Categories c ON c.CategoryID = s.CategoryID " +
+            "WHERE sr.CreatedAt >= :start AND sr.CreatedAt < :end " +
+            "GROUP BY DATE(sr.CreatedAt), c.CategoryName", nativeQuery = true)
+    void rebuildBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+
+    @Query("SELECT s.category, SUM(s.resultCount) FROM SurveyDailyStat s " +
+            "WHERE s.statDate BETWEEN :from AND :to " +
+            "GROUP BY s.category")
+    List<Object[]> sumByCategoryBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
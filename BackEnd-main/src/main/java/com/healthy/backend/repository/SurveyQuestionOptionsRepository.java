@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -16,6 +17,8 @@ public interface SurveyQuestionOptionsRepository extends JpaRepository<SurveyQue
 
     List<SurveyQuestionOptions> findByQuestionID(String questionId);
 
+    List<SurveyQuestionOptions> findByQuestionIDInOrderByOptionID(Collection<String> questionIds);
+
     @Query("SELECT sqc.optionID FROM SurveyQuestionOptions sqc ORDER BY sqc.optionID DESC LIMIT 1")
     String findLastQuestionOptionId();
 }
\ No newline at end of file
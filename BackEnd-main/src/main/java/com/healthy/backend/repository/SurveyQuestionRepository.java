@@ -13,6 +13,11 @@ public interface SurveyQuestionRepository extends JpaRepository<SurveyQuestions,
 
     List<SurveyQuestions> findBySurveyID(String surveyID);
 
+    // Dựng SurveyDefinition: câu hỏi theo thứ tự kèm survey và category trong một query
+    @Query("SELECT q FROM SurveyQuestions q JOIN FETCH q.survey LEFT JOIN FETCH q.category " +
+            "WHERE q.surveyID = :surveyId ORDER BY q.questionID")
+    List<SurveyQuestions> findDefinitionQuestions(@Param("surveyId") String surveyId);
+
     // @Query("SELECT sq from SurveyQuestions sq ORDER BY sq.questionID DESC")
     SurveyQuestions findFirstByOrderByQuestionIDDesc();
 
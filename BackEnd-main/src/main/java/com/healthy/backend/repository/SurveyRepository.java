@@ -1,16 +1,26 @@
 package com.healthy.backend.repository;
 
 import com.healthy.backend.entity.Surveys;
+import com.healthy.backend.survey.SurveyOverview;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface SurveyRepository extends JpaRepository<Surveys, String> {
 
     @Query("SELECT s.surveyID FROM Surveys s ORDER BY s.surveyID DESC LIMIT 1")
     String findLastSurveyId();
 
-
-
+    // Danh sách survey cho manager: số câu hỏi và số học sinh đã làm đếm bằng subquery, không N+1
+    @Query("SELECT new com.healthy.backend.survey.SurveyOverview(" +
+            "s.surveyID, s.surveyName, s.description, s.details, s.duration, s.categoryID, c.categoryName, " +
+            "s.status, s.createdAt, u.fullName, " +
+            "(SELECT COUNT(q) FROM SurveyQuestions q WHERE q.surveyID = s.surveyID), " +
+            "(SELECT COUNT(DISTINCT sr.studentID) FROM SurveyResult sr WHERE sr.surveyID = s.surveyID)) " +
+            "FROM Surveys s LEFT JOIN s.category c LEFT JOIN s.creator u " +
+            "ORDER BY s.surveyID")
+    List<SurveyOverview> findOverviews();
 }
\ No newline at end of file
@@ -1,11 +1,17 @@
 package com.healthy.backend.repository;
 
 import com.healthy.backend.entity.SurveyResult;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface SurveyResultRepository extends JpaRepository<SurveyResult, String> {
 
@@ -13,6 +19,10 @@ public interface SurveyResultRepository extends JpaRepository<SurveyResult, Stri
 
     List<SurveyResult> findBySurveyID(String surveyId);
 
+    // Danh sách survey của học sinh/phụ huynh: mọi kết quả của các học sinh trong một query
+    @Query("SELECT sr FROM SurveyResult sr WHERE sr.studentID IN :studentIDs ORDER BY sr.createdAt, sr.resultID")
+    List<SurveyResult> findByStudentIDs(@Param("studentIDs") Collection<String> studentIDs);
+
 
 
     @Query("SELECT sr.resultID FROM SurveyResult sr ORDER BY sr.resultID DESC LIMIT 1")
@@ -30,6 +40,11 @@ public interface SurveyResultRepository extends JpaRepository<SurveyResult, Stri
     @Query("SELECT COUNT(sr) FROM SurveyResult sr WHERE sr.surveyID = :surveyID AND sr.studentID =:studentID")
     int countResultStudent(@Param("surveyID") String surveyID, @Param("studentID") String studentID);
 
+    // (studentID, Long) countResultStudent cho nhiều học sinh một lần; học sinh chưa có kết quả không có dòng
+    @Query("SELECT sr.studentID, COUNT(sr) FROM SurveyResult sr " +
+            "WHERE sr.surveyID = :surveyID AND sr.studentID IN :studentIDs GROUP BY sr.studentID")
+    List<Object[]> countResultByStudents(@Param("surveyID") String surveyID, @Param("studentIDs") Collection<String> studentIDs);
+
     
     @Query("SELECT COUNT(DISTINCT sr.studentID) FROM SurveyResult sr WHERE sr.surveyID = :surveyID")
     int countDistinctStudentsBySurveyID(@Param("surveyID") String surveyID);
@@ -38,9 +53,38 @@ public interface SurveyResultRepository extends JpaRepository<SurveyResult, Stri
     List<String> findStudentsBySurveyID(@Param("surveyID") String surveyID);
     
 
-    @Query("SELECT sr FROM SurveyResult sr JOIN FETCH sr.choices WHERE sr.resultID = :resultID")
-    SurveyResult findByIdWithChoices(@Param("resultID") String resultID);
+    // (SurveyCategory, count) for results created in [start, end); served by idx_survey_result_created_survey
+    @Query("SELECT c.categoryName, COUNT(sr) FROM SurveyResult sr " +
+            "JOIN sr.survey s JOIN s.category c " +
+            "WHERE sr.createdAt >= :start AND sr.createdAt < :end " +
+            "GROUP BY c.categoryName")
+    List<Object[]> countByCategoryBetween(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
+    @Query("SELECT c.categoryName, COUNT(sr) FROM SurveyResult sr " +
+            "JOIN sr.survey s JOIN s.category c " +
+            "GROUP BY c.categoryName")
+    List<Object[]> countByCategory();
 
+    @Query("SELECT MIN(sr.createdAt) FROM SurveyResult sr")
+    LocalDateTime findEarliestCreatedAt();
+
+    @Query("SELECT sr FROM SurveyResult sr JOIN FETCH sr.choices WHERE sr.resultID = :resultID")
+    SurveyResult findByIdWithChoices(@Param("resultID") String resultID);
 
-}
\ No newline at end of file
+    // Export, see AppointmentRepository.streamForExport
+    String EXPORT_SELECT = "SELECT sr.resultID, sr.surveyID, s.surveyName, c.categoryName, sr.studentID, sr.result, " +
+            "sr.maxScore, sr.createdAt " +
+            "FROM SurveyResult sr JOIN sr.survey s JOIN s.category c " +
+            "WHERE sr.createdAt >= :start AND sr.createdAt < :end ";
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(EXPORT_SELECT + "ORDER BY sr.resultID")
+    Stream<Object[]> streamForExport(@Param("start") LocalDateTime start,
+                                     @Param("end") LocalDateTime end);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE))
+    @Query(EXPORT_SELECT + "AND sr.resultID > :afterId ORDER BY sr.resultID")
+    Stream<Object[]> streamForExportAfter(@Param("start") LocalDateTime start,
+                                          @Param("end") LocalDateTime end,
+                                          @Param("afterId") String afterId);
+}
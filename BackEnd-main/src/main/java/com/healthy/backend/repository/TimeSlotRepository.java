@@ -2,13 +2,17 @@ package com.healthy.backend.repository;
 
 import com.healthy.backend.entity.Psychologists;
 import com.healthy.backend.entity.TimeSlots;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,6 +21,11 @@ public interface TimeSlotRepository extends JpaRepository<TimeSlots, String> {
     @Query("SELECT ts FROM TimeSlots ts JOIN FETCH ts.psychologist WHERE ts.timeSlotsID = :id")
     Optional<TimeSlots> findByIdWithPsychologist(@Param("id") String id);
 
+    // Same row lock reserveSeat/releaseSeat take, so a capacity check cannot interleave with them
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT ts FROM TimeSlots ts WHERE ts.timeSlotsID = :id")
+    Optional<TimeSlots> findForUpdate(@Param("id") String id);
+
 
 
     @Query("SELECT ts FROM TimeSlots ts " +
@@ -38,5 +47,39 @@ public interface TimeSlotRepository extends JpaRepository<TimeSlots, String> {
             LocalTime endTime
     );
 
+    // (date, start, end) of every slot a psychologist already has in the range, for duplicate checks
+    @Query("SELECT ts.slotDate, ts.startTime, ts.endTime FROM TimeSlots ts " +
+            "WHERE ts.psychologist.psychologistID = :psychologistId " +
+            "AND ts.slotDate BETWEEN :from AND :to")
+    List<Object[]> findSlotTimesInRange(@Param("psychologistId") String psychologistId,
+                                        @Param("from") LocalDate from,
+                                        @Param("to") LocalDate to);
+
+    // Rows for SlotAvailabilityIndex: id, psychologistId, date, start, end, capacity, bookings, status
+    @Query("SELECT ts.timeSlotsID, ts.psychologist.psychologistID, ts.slotDate, ts.startTime, ts.endTime, " +
+            "ts.maxCapacity, ts.currentBookings, ts.status FROM TimeSlots ts")
+    List<Object[]> findAllAvailabilityRows();
+
+    // Same columns as findAllAvailabilityRows, for slots changed while the index was being rebuilt
+    @Query("SELECT ts.timeSlotsID, ts.psychologist.psychologistID, ts.slotDate, ts.startTime, ts.endTime, " +
+            "ts.maxCapacity, ts.currentBookings, ts.status FROM TimeSlots ts WHERE ts.timeSlotsID IN :ids")
+    List<Object[]> findAvailabilityRowsByIds(@Param("ids") Collection<String> ids);
+
+    // Claims one seat only if the slot still has room; returns 0 when it is full or missing.
+    // Status is assigned first so it sees the old count on databases that apply SET left to right.
+    @Modifying
+    @Query("UPDATE TimeSlots ts " +
+            "SET ts.status = CASE WHEN ts.currentBookings + 1 >= ts.maxCapacity " +
+            "THEN com.healthy.backend.enums.TimeslotStatus.BOOKED ELSE ts.status END, " +
+            "ts.currentBookings = ts.currentBookings + 1 " +
+            "WHERE ts.timeSlotsID = :id AND ts.currentBookings < ts.maxCapacity")
+    int reserveSeat(@Param("id") String id);
+
+    @Modifying
+    @Query("UPDATE TimeSlots ts " +
+            "SET ts.status = com.healthy.backend.enums.TimeslotStatus.AVAILABLE, " +
+            "ts.currentBookings = ts.currentBookings - 1 " +
+            "WHERE ts.timeSlotsID = :id AND ts.currentBookings > 0")
+    int releaseSeat(@Param("id") String id);
 
 }
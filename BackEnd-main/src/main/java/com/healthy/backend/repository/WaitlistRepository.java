@@ -0,0 +1,30 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.entity.WaitlistEntry;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+
+    // Người đứng đầu hàng đợi của slot, khóa lại để promote
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WaitlistEntry w WHERE w.timeSlotsID = :timeSlotId ORDER BY w.entryID")
+    List<WaitlistEntry> findHeadForUpdate(@Param("timeSlotId") String timeSlotId, Pageable pageable);
+
+    Optional<WaitlistEntry> findByTimeSlotsIDAndStudentID(String timeSlotsID, String studentID);
+
+    boolean existsByTimeSlotsIDAndStudentID(String timeSlotsID, String studentID);
+
+    long countByTimeSlotsID(String timeSlotsID);
+
+    long countByTimeSlotsIDAndEntryIDLessThanEqual(String timeSlotsID, Long entryID);
+}
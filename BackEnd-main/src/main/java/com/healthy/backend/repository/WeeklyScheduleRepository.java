@@ -0,0 +1,15 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.entity.WeeklySchedule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WeeklyScheduleRepository extends JpaRepository<WeeklySchedule, String> {
+
+    @Query("SELECT ws.psychologistID FROM WeeklySchedule ws")
+    List<String> findAllPsychologistIds();
+}
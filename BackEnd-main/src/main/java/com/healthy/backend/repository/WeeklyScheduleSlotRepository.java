@@ -0,0 +1,20 @@
+package com.healthy.backend.repository;
+
+import com.healthy.backend.entity.WeeklyScheduleSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface WeeklyScheduleSlotRepository extends JpaRepository<WeeklyScheduleSlot, Long> {
+
+    List<WeeklyScheduleSlot> findByPsychologistID(String psychologistID);
+
+    @Modifying
+    @Query("DELETE FROM WeeklyScheduleSlot w WHERE w.psychologistID = :psychologistId")
+    void deleteByPsychologistID(@Param("psychologistId") String psychologistId);
+}
@@ -1,28 +1,34 @@
 package com.healthy.backend.service;
 
+import com.healthy.backend.dto.appointment.AppointmentPageResponse;
 import com.healthy.backend.dto.appointment.AppointmentRequest;
 import com.healthy.backend.dto.appointment.AppointmentResponse;
 import com.healthy.backend.dto.appointment.AppointmentUpdateRequest;
+import com.healthy.backend.dto.appointment.WaitlistResponse;
 import com.healthy.backend.dto.psychologist.DepartmentResponse;
 import com.healthy.backend.entity.*;
 import com.healthy.backend.enums.AppointmentStatus;
-import com.healthy.backend.enums.TimeslotStatus;
 import com.healthy.backend.exception.OperationFailedException;
 import com.healthy.backend.exception.ResourceAlreadyExistsException;
 import com.healthy.backend.exception.ResourceInvalidException;
 import com.healthy.backend.exception.ResourceNotFoundException;
 import com.healthy.backend.mapper.*;
 import com.healthy.backend.repository.*;
-import jakarta.persistence.criteria.Join;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
-import java.util.Objects;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -35,79 +41,86 @@ public class AppointmentService {
     private final TimeSlotRepository timeSlotRepository;
     private final StudentRepository studentRepository;
     private final UserRepository userRepository;
+    private final WaitlistRepository waitlistRepository;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
 
     private final GeneralService __;
-    private final EmailService emailService;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
+    private final DashboardRollupService dashboardRollupService;
+    private final SessionLatencyAnalytics sessionLatencyAnalytics;
 
     private final PsychologistsMapper psychologistMapper;
     private final AppointmentMapper appointmentMapper;
     private final DepartmentMapper departmentMapper;
     private final StudentMapper studentMapper;
     private final UserMapper userMapper;
-    private final PsychologistService psychologistService;
 
+    private static final int MAX_FILTER_PAGE_SIZE = 100;
 
-    public List<AppointmentResponse> filterAppointments(
+
+    public AppointmentPageResponse filterAppointments(
             String studentId,
             String psychologistId,
             LocalDate startDate,
             LocalDate endDate,
-            List<AppointmentStatus> status) { // Thay đổi thành List
-
-        Specification<Appointments> spec = Specification.where(null);
+            List<AppointmentStatus> status,
+            String cursor,
+            int size) {
 
-        if (studentId != null) {
-            spec = spec.and((root, query, cb) ->
-                    cb.equal(root.get("student").get("studentID"), studentId));
+        if (size < 1 || size > MAX_FILTER_PAGE_SIZE) {
+            throw new ResourceInvalidException("Page size must be between 1 and " + MAX_FILTER_PAGE_SIZE);
         }
 
-        if (psychologistId != null) {
-            spec = spec.and((root, query, cb) ->
-                    cb.equal(root.get("psychologist").get("psychologistID"), psychologistId));
+        LocalDate afterDate = null;
+        String afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] key = decodeCursor(cursor);
+            afterDate = LocalDate.parse(key[0]);
+            afterId = key[1];
         }
 
-        if (startDate != null || endDate != null) {
-            spec = spec.and((root, query, cb) -> {
-                Join<Appointments, TimeSlots> timeSlotJoin = root.join("timeSlot");
-                if (startDate != null && endDate != null) {
-                    return cb.between(timeSlotJoin.get("slotDate"), startDate, endDate);
-                } else if (startDate != null) {
-                    return cb.greaterThanOrEqualTo(timeSlotJoin.get("slotDate"), startDate);
-                } else {
-                    return cb.lessThanOrEqualTo(timeSlotJoin.get("slotDate"), endDate);
-                }
-            });
-        }
+        Collection<AppointmentStatus> statuses = (status == null || status.isEmpty()) ? null : status;
 
-        if (status != null && !status.isEmpty()) {
-            spec = spec.and((root, query, cb) ->
-                    root.get("status").in(status));
+        // Lấy dư một dòng để biết còn trang sau hay không
+        List<AppointmentResponse> rows = appointmentRepository.filterPage(
+                studentId, psychologistId, startDate, endDate, statuses,
+                afterDate, afterId, size + 1);
+
+        String nextCursor = null;
+        if (rows.size() > size) {
+            rows = rows.subList(0, size);
+            AppointmentResponse last = rows.get(size - 1);
+            nextCursor = encodeCursor(last.getSlotDate(), last.getAppointmentID());
         }
+        return AppointmentPageResponse.builder()
+                .items(rows)
+                .nextCursor(nextCursor)
+                .build();
+    }
 
-        return appointmentRepository.findAll(spec)
-                .stream()
-                .map(this::mapToAppointmentResponse)
-                .collect(Collectors.toList());
+    // Appointment tạo trước khi có cột SlotDate chưa vào được trang lọc: điền một lần lúc khởi động
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillSlotDates() {
+        appointmentRepository.backfillSlotDates();
+    }
+
+    private String encodeCursor(String slotDate, String appointmentId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((slotDate + "|" + appointmentId).getBytes(StandardCharsets.UTF_8));
     }
 
-    private AppointmentResponse mapToAppointmentResponse(Appointments appointment) {
-        AppointmentResponse response = new AppointmentResponse();
-        response.setAppointmentID(appointment.getAppointmentID());
-        response.setStudentName(appointment.getStudent().getUser().getFullName());
-        response.setStudentID(appointment.getStudentID());
-        response.setPsychologistName(appointment.getPsychologist().getUser().getFullName());
-        response.setPsychologistID(appointment.getPsychologistID());
-        response.setStatus(String.valueOf(appointment.getStatus()));
-        response.setCreatedAt(appointment.getCreatedAt());
-        response.setUpdatedAt(appointment.getUpdatedAt());
-
-        if (appointment.getTimeSlot() != null) {
-            response.setSlotDate(String.valueOf(appointment.getTimeSlot().getSlotDate()));
-            response.setStartTime(String.valueOf(appointment.getTimeSlot().getStartTime()));
-            response.setEndTime(String.valueOf(appointment.getTimeSlot().getEndTime()));
-        }
-        return response;
+    private String[] decodeCursor(String cursor) {
+        try {
+            String[] key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|", 2);
+            if (key.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            LocalDate.parse(key[0]);
+            return key;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ResourceInvalidException("Invalid cursor");
+        }
     }
 
 
@@ -119,21 +132,12 @@ public class AppointmentService {
     }
 
     public List<AppointmentResponse> getAllAppointments() {
-        List<Appointments> appointments = appointmentRepository.findAll();
+        List<Appointments> appointments = appointmentRepository.findAllWithDetails();
         if (appointments.isEmpty()) {
             throw new ResourceNotFoundException("No appointments found");
         }
         return appointments.stream()
-                .map(appointment ->
-                        appointmentMapper.buildAppointmentResponse(
-                                appointment,
-                                psychologistMapper.buildPsychologistResponse(
-                                        Objects.requireNonNull(psychologistRepository.findById(
-                                                appointment.getPsychologistID()).orElse(null))),
-                                studentMapper.buildBasicStudentResponse(
-                                        Objects.requireNonNull(studentRepository.findById(
-                                                appointment.getStudentID()).orElse(null)))
-                        ))
+                .map(this::buildDetailedResponse)
                 .collect(Collectors.toList());
     }
 
@@ -156,35 +160,47 @@ public class AppointmentService {
 
     @Transactional
     public AppointmentResponse bookAppointment(AppointmentRequest request) {
-        // Validate và tìm time slot
-        TimeSlots timeSlot = timeSlotRepository.findById(request.getTimeSlotId())
-                .orElseThrow(() -> new ResourceNotFoundException("Time slot not found with id: " + request.getTimeSlotId()));
-
-        // Kiểm tra capacity của time slot
-        if (timeSlot.getCurrentBookings() >= timeSlot.getMaxCapacity()) {
-            throw new ResourceAlreadyExistsException("Time slot is full. Maximum capacity: " + timeSlot.getMaxCapacity());
-        }
-
         // Validate student
         Students student = studentRepository.findByUserID(request.getUserId());
         if (student == null) {
             throw new ResourceNotFoundException("Student not found" + request.getUserId());
         }
 
-        // Validate psychologist
-        Psychologists psychologist = psychologistRepository.findById(timeSlot.getPsychologist().getPsychologistID())
-                .orElseThrow(() -> new ResourceNotFoundException("Psychologist not found with ID: " + timeSlot.getPsychologist().getPsychologistID()));
-
         boolean hasExistingAppointment = appointmentRepository.existsByStudentIDAndTimeSlotsID(
-                student.getStudentID(), timeSlot.getTimeSlotsID());
+                student.getStudentID(), request.getTimeSlotId());
         if (hasExistingAppointment) {
             throw new ResourceAlreadyExistsException("Student already has an appointment in this time slot");
         }
 
+        // Giữ chỗ bằng một câu UPDATE có điều kiện, không đọc-sửa-ghi trong Java
+        reserveSeat(request.getTimeSlotId());
+
+        TimeSlots timeSlot = timeSlotRepository.findByIdWithPsychologist(request.getTimeSlotId())
+                .orElseThrow(() -> new ResourceNotFoundException("Time slot not found with id: " + request.getTimeSlotId()));
+
+        // Đặt được chỗ thì không cần đứng trong hàng đợi của slot này nữa
+        waitlistRepository.findByTimeSlotsIDAndStudentID(timeSlot.getTimeSlotsID(), student.getStudentID())
+                .ifPresent(waitlistRepository::delete);
+
+        Appointments savedAppointment = createAppointment(student, timeSlot, "New Appointment Booked");
+
+        // Trả về response
+        return appointmentMapper.buildAppointmentResponse(
+                savedAppointment,
+                psychologistMapper.buildPsychologistResponse(timeSlot.getPsychologist()),
+                studentMapper.buildBasicStudentResponse(student)
+        );
+    }
+
+    // Seat must already be reserved by the caller
+    private Appointments createAppointment(Students student, TimeSlots timeSlot, String title) {
+        Psychologists psychologist = timeSlot.getPsychologist();
+
         // Tạo appointment mới
         Appointments appointment = new Appointments();
         appointment.setAppointmentID(__.generateAppointmentId());
         appointment.setTimeSlotsID(timeSlot.getTimeSlotsID());
+        appointment.setSlotDate(timeSlot.getSlotDate());
         appointment.setStudentID(student.getStudentID());
         appointment.setPsychologistID(psychologist.getPsychologistID());
         appointment.setPsychologist(psychologist);
@@ -194,53 +210,41 @@ public class AppointmentService {
 
         // Lưu appointment
         Appointments savedAppointment = appointmentRepository.save(appointment);
+        dashboardRollupService.appointmentCreated(savedAppointment);
 
-        // Cập nhật số lượng bookings trong time slot
-        timeSlot.setCurrentBookings(timeSlot.getCurrentBookings() + 1);
-        if (timeSlot.getCurrentBookings() >= timeSlot.getMaxCapacity()) {
-            timeSlot.setStatus(TimeslotStatus.BOOKED);
-        }
-        timeSlotRepository.save(timeSlot);
-
-        // Gửi thông báo cho psychologist
+        // Side effects ghi vào outbox cùng transaction, OutboxDispatcher gửi sau
         Users psychologistUser = userRepository.findByUserId(psychologist.getUserID())
                 .orElseThrow(() -> new ResourceNotFoundException("User not found"));
 
         if (psychologistUser.getEmail() != null) {
-            emailService.sendNewAppointmentEmail(
+            outboxService.appointmentEmail(
+                    savedAppointment.getAppointmentID(),
                     psychologistUser.getEmail(),
                     psychologist.getFullNameFromUser(),
-                    student,
-                    savedAppointment.getAppointmentID(),
-                    timeSlot,
-                    "New Appointment Booked"
+                    student.getStudentID(),
+                    timeSlot.getTimeSlotsID(),
+                    title
             );
         }
 
         // Tạo notification cho psychologist
-        notificationService.createAppointmentNotification(
+        outboxService.appointmentNotification(
+                savedAppointment.getAppointmentID(),
                 psychologistUser.getUserId(),
-                "New Appointment Booked",
-                "You have a new appointment with " + student.getUser().getFullName(),
-                savedAppointment.getAppointmentID()
+                title,
+                "You have a new appointment with " + student.getUser().getFullName()
         );
         // Tạo notification cho student
-        notificationService.createAppointmentNotification(
+        outboxService.appointmentNotification(
+                savedAppointment.getAppointmentID(),
                 student.getUser().getUserId(),
-                "New Appointment Booked",
-                "you have made an appointment with the psychologist " + psychologistUser.getFullName(),
-                savedAppointment.getAppointmentID()
+                title,
+                "you have made an appointment with the psychologist " + psychologistUser.getFullName()
         );
 
-        LocalDate slotDate = timeSlot.getSlotDate();
-        psychologistService.increaseAchievedSlots(psychologist.getPsychologistID(), slotDate);
-
-        // Trả về response
-        return appointmentMapper.buildAppointmentResponse(
-                savedAppointment,
-                psychologistMapper.buildPsychologistResponse(psychologist),
-                studentMapper.buildBasicStudentResponse(student)
-        );
+        outboxService.kpiSlotBooked(savedAppointment.getAppointmentID(),
+                psychologist.getPsychologistID(), timeSlot.getSlotDate());
+        return savedAppointment;
     }
 
     // Cancel
@@ -276,53 +280,51 @@ public class AppointmentService {
         }
 
         // Cập nhật trạng thái appointment
+        AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(AppointmentStatus.CANCELLED);
         appointmentRepository.save(appointment);
+        dashboardRollupService.appointmentStatusChanged(appointment, previousStatus);
         appointment.setCancellationReason(reason);
 
-        // Cập nhật lại số lượng bookings trong time slot
-        timeSlot.setCurrentBookings(timeSlot.getCurrentBookings() - 1);
-        if (timeSlot.getCurrentBookings() < timeSlot.getMaxCapacity()) {
-            timeSlot.setStatus(TimeslotStatus.AVAILABLE);
-        }
-        timeSlotRepository.save(timeSlot);
+        // Cập nhật lại số lượng bookings trong time slot, chỗ trống chuyển ngay cho người chờ
+        releaseSeat(timeSlot.getTimeSlotsID());
+        promoteFromWaitlist(timeSlot.getTimeSlotsID());
 
         // Gửi thông báo cho cả student và psychologist
         String psychologistName = appointment.getPsychologist().getFullNameFromUser();
         String studentName = appointment.getStudent().getUser().getFullName();
 
         if ("Psychologist".equalsIgnoreCase(String.valueOf(user.getRole()))) {
-            notificationService.createAppointmentNotification(
+            outboxService.appointmentNotification(
+                    appointmentId,
                     appointment.getStudent().getUserID(),
                     "Appointment Canceled",
-                    "Your appointment has been canceled by " + psychologistName + ". Reason: " + reason,
-                    appointmentId
+                    "Your appointment has been canceled by " + psychologistName + ". Reason: " + reason
             );
 
-            notificationService.createAppointmentNotification(
+            outboxService.appointmentNotification(
+                    appointmentId,
                     appointment.getPsychologist().getUserID(),
                     "Appointment Canceled",
-                    "You declined the appointment. Reason: " + reason,
-                    appointmentId
+                    "You declined the appointment. Reason: " + reason
             );
         } else if ("Student".equalsIgnoreCase(String.valueOf(user.getRole()))) {
-            notificationService.createAppointmentNotification(
+            outboxService.appointmentNotification(
+                    appointmentId,
                     appointment.getPsychologist().getUserID(),
                     "Appointment Canceled",
-                    "Your appointment has been canceled by " + studentName + ". Reason: " + reason,
-                    appointmentId
+                    "Your appointment has been canceled by " + studentName + ". Reason: " + reason
             );
 
-            notificationService.createAppointmentNotification(
+            outboxService.appointmentNotification(
+                    appointmentId,
                     appointment.getStudent().getUserID(),
                     "Appointment Canceled",
-                    "You declined the appointment. Reason: " + reason,
-                    appointmentId
+                    "You declined the appointment. Reason: " + reason
             );
         }
 
-        LocalDate slotDate = timeSlot.getSlotDate();
-        psychologistService.decreaseAchievedSlots(appointment.getPsychologistID(), slotDate);
+        outboxService.kpiSlotReleased(appointmentId, appointment.getPsychologistID(), timeSlot.getSlotDate());
 
         // Trả về response
         return appointmentMapper.buildAppointmentResponse(appointment);
@@ -353,11 +355,6 @@ public class AppointmentService {
             TimeSlots newTimeSlot = timeSlotRepository.findByIdWithPsychologist(request.getTimeSlotId())
                     .orElseThrow(() -> new ResourceNotFoundException("Cannot find time slot with id " + request.getTimeSlotId()));
 
-            // Check trạng thái TimeSlot mới
-            if (newTimeSlot.getStatus() == TimeslotStatus.BOOKED) {
-                throw new ResourceInvalidException("Time slot is not available");
-            }
-
             // Lấy TimeSlot cũ
             TimeSlots oldTimeSlot = timeSlotRepository.findById(appointment.getTimeSlotsID())
                     .orElseThrow(() -> new ResourceNotFoundException("Cannot find time slot with id " + appointment.getTimeSlotsID()));
@@ -367,11 +364,27 @@ public class AppointmentService {
                 handlePsychologistChange(appointment, oldTimeSlot, newTimeSlot, appointmentId);
             }
 
-            // Cập nhật trạng thái TimeSlot
-            updateTimeSlotStatus(newTimeSlot, oldTimeSlot);
+            dashboardRollupService.appointmentMoved(appointment, oldTimeSlot.getPsychologist(), newTimeSlot.getPsychologist());
+
+            // Chuyển chỗ: giữ chỗ ở slot mới và trả chỗ ở slot cũ. Hai row được khóa theo thứ tự timeSlotsID
+            // để hai lần đổi lịch ngược chiều (A->B, B->A) không chờ lẫn nhau thành deadlock; nếu slot mới đầy
+            // thì exception rollback luôn phần đã trả chỗ
+            if (newTimeSlot.getTimeSlotsID().compareTo(oldTimeSlot.getTimeSlotsID()) < 0) {
+                reserveSeat(newTimeSlot.getTimeSlotsID());
+                releaseSeat(oldTimeSlot.getTimeSlotsID());
+            } else {
+                releaseSeat(oldTimeSlot.getTimeSlotsID());
+                reserveSeat(newTimeSlot.getTimeSlotsID());
+            }
+            promoteFromWaitlist(oldTimeSlot.getTimeSlotsID());
+
+            // Như bookAppointment: đã có chỗ ở slot mới thì rời hàng đợi của slot đó
+            waitlistRepository.findByTimeSlotsIDAndStudentID(newTimeSlot.getTimeSlotsID(), appointment.getStudentID())
+                    .ifPresent(waitlistRepository::delete);
 
             // Gán TimeSlot mới cho appointment
             appointment.setTimeSlotsID(newTimeSlot.getTimeSlotsID());
+            appointment.setSlotDate(newTimeSlot.getSlotDate());
             appointment.setPsychologistID(newTimeSlot.getPsychologist().getPsychologistID());
         }
 
@@ -396,28 +409,29 @@ public class AppointmentService {
 
         // Gửi thông báo cho Psychologist nếu Student update
         if (updaterRole.equalsIgnoreCase("STUDENT")) {
-            notificationService.createAppointmentNotification(
+            outboxService.appointmentNotification(
+                    appointment.getAppointmentID(),
                     appointment.getPsychologist().getUserID(),
                     "Appointment Updated",
-                    "The appointment with " + updaterName + " has been updated by the student.",
-                    appointment.getAppointmentID()
+                    "The appointment with " + updaterName + " has been updated by the student."
             );
         }
 
         // Gửi thông báo cho Student nếu Psychologist update
         if (updaterRole.equalsIgnoreCase("PSYCHOLOGIST")) {
-            notificationService.createAppointmentNotification(
+            outboxService.appointmentNotification(
+                    appointment.getAppointmentID(),
                     appointment.getStudent().getUserID(),
                     "Appointment Updated",
-                    "The appointment has been updated by psychologist " + updaterName + ".",
-                    appointment.getAppointmentID()
+                    "The appointment has been updated by psychologist " + updaterName + "."
             );
         }
     }
 
     // Check in
+    @Transactional
     public AppointmentResponse checkIn(String appointmentId,String psychologistId) {
-        Appointments appointment = appointmentRepository.findById(appointmentId)
+        Appointments appointment = appointmentRepository.findByIdWithDetails(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
 
         if (!psychologistId.equals(appointment.getPsychologistID())) {
@@ -436,24 +450,19 @@ public class AppointmentService {
             throw new OperationFailedException("Appointment is already in progress");
         }
 
+        AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(AppointmentStatus.IN_PROGRESS);
         appointment.setCheckInTime(LocalDateTime.now());
         appointmentRepository.save(appointment);
+        dashboardRollupService.appointmentStatusChanged(appointment, previousStatus);
 
-        return appointmentMapper.buildAppointmentResponse(
-                appointment,
-                psychologistMapper.buildPsychologistResponse(
-                        Objects.requireNonNull(psychologistRepository.findById(
-                                appointment.getPsychologistID()).orElse(null))),
-                studentMapper.buildBasicStudentResponse(
-                        Objects.requireNonNull(studentRepository.findById(
-                                appointment.getStudentID()).orElse(null)))
-        );
+        return buildDetailedResponse(appointment);
     }
 
     // Check out
+    @Transactional
     public AppointmentResponse checkOut(String appointmentId, String psychologistNote) {
-        Appointments appointment = appointmentRepository.findById(appointmentId)
+        Appointments appointment = appointmentRepository.findByIdWithDetails(appointmentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Appointment not found with id: " + appointmentId));
 
         if (appointment.getStatus() == AppointmentStatus.CANCELLED) {
@@ -468,27 +477,31 @@ public class AppointmentService {
             throw new OperationFailedException("You have not checked in yet");
         }
 
+        AppointmentStatus previousStatus = appointment.getStatus();
         appointment.setStatus(AppointmentStatus.COMPLETED);
         appointment.setCheckOutTime(LocalDateTime.now());
         appointment.setPsychologistNote(psychologistNote);
         appointmentRepository.save(appointment);
+        dashboardRollupService.appointmentStatusChanged(appointment, previousStatus);
+        sessionLatencyAnalytics.sessionCompleted(appointment);
 
         // Add notification for student
-        notificationService.createAppointmentNotification(
+        outboxService.appointmentNotification(
+                appointmentId,
                 appointment.getStudent().getUserID(),
                 "Appointment Check-out",
-                "Your appointment has been checked out. Note: " + psychologistNote,
-                appointmentId
+                "Your appointment has been checked out. Note: " + psychologistNote
         );
 
+        return buildDetailedResponse(appointment);
+    }
+
+    // Appointment must come from one of the *WithDetails queries
+    private AppointmentResponse buildDetailedResponse(Appointments appointment) {
         return appointmentMapper.buildAppointmentResponse(
                 appointment,
-                psychologistMapper.buildPsychologistResponse(
-                        Objects.requireNonNull(psychologistRepository.findById(
-                                appointment.getPsychologistID()).orElse(null))),
-                studentMapper.buildBasicStudentResponse(
-                        Objects.requireNonNull(studentRepository.findById(
-                                appointment.getStudentID()).orElse(null)))
+                psychologistMapper.buildPsychologistResponse(appointment.getPsychologist()),
+                studentMapper.buildBasicStudentResponse(appointment.getStudent())
         );
     }
 
@@ -507,29 +520,132 @@ public class AppointmentService {
     }
 
     private void sendPsychologistNotification(Users user, Appointments appointment, String subject, String body, String appointmentId) {
-        emailService.sendNewAppointmentEmail(
+        outboxService.appointmentEmail(
+                appointmentId,
                 user.getEmail(),
                 appointment.getPsychologist().getFullNameFromUser(),
-                appointment.getStudent(),
-                appointment.getAppointmentID(),
-                appointment.getTimeSlot(),
+                appointment.getStudentID(),
+                appointment.getTimeSlotsID(),
                 subject
         );
-        notificationService.createAppointmentNotification(
+        outboxService.appointmentNotification(
+                appointmentId,
                 user.getUserId(),
                 subject,
-                body,
-                appointmentId
+                body
         );
     }
 
-    private void updateTimeSlotStatus(TimeSlots newTimeSlot, TimeSlots oldTimeSlot) {
-        newTimeSlot.setStatus(TimeslotStatus.BOOKED);
-        timeSlotRepository.save(newTimeSlot);
-        // If old time slot was booked, mark it as available
-        if (oldTimeSlot.getStatus() == TimeslotStatus.BOOKED) {
-            oldTimeSlot.setStatus(TimeslotStatus.AVAILABLE);
-            timeSlotRepository.save(oldTimeSlot);
+    @Transactional
+    public WaitlistResponse joinWaitlist(String userId, String timeSlotId) {
+        Students student = studentRepository.findByUserID(userId);
+        if (student == null) {
+            throw new ResourceNotFoundException("Student not found" + userId);
+        }
+        // Khóa row slot trước khi xem còn chỗ: releaseSeat + promoteFromWaitlist chạy sau lock này,
+        // nên không thể trả chỗ và duyệt hàng đợi xong xuôi trước khi entry mới được thêm vào
+        TimeSlots timeSlot = timeSlotRepository.findForUpdate(timeSlotId)
+                .orElseThrow(() -> new ResourceNotFoundException("Time slot not found with id: " + timeSlotId));
+
+        if (timeSlot.getCurrentBookings() < timeSlot.getMaxCapacity()) {
+            throw new ResourceInvalidException("Time slot still has free seats, book it directly");
+        }
+        if (appointmentRepository.existsByStudentIDAndTimeSlotsID(student.getStudentID(), timeSlotId)) {
+            throw new ResourceAlreadyExistsException("Student already has an appointment in this time slot");
+        }
+        if (waitlistRepository.existsByTimeSlotsIDAndStudentID(timeSlotId, student.getStudentID())) {
+            throw new ResourceAlreadyExistsException("Student is already on the waitlist of this time slot");
+        }
+
+        WaitlistEntry entry = waitlistRepository.save(new WaitlistEntry(timeSlotId, student.getStudentID()));
+        return buildWaitlistResponse(entry);
+    }
+
+    @Transactional
+    public void leaveWaitlist(String userId, String timeSlotId) {
+        Students student = studentRepository.findByUserID(userId);
+        if (student == null) {
+            throw new ResourceNotFoundException("Student not found" + userId);
+        }
+        WaitlistEntry entry = waitlistRepository.findByTimeSlotsIDAndStudentID(timeSlotId, student.getStudentID())
+                .orElseThrow(() -> new ResourceNotFoundException("Student is not on the waitlist of this time slot"));
+        waitlistRepository.delete(entry);
+    }
+
+    // Position is only filled in when the caller is a student waiting on the slot
+    public WaitlistResponse getWaitlistStatus(String userId, String timeSlotId) {
+        if (!timeSlotRepository.existsById(timeSlotId)) {
+            throw new ResourceNotFoundException("Time slot not found with id: " + timeSlotId);
+        }
+        Students student = studentRepository.findByUserID(userId);
+        if (student != null) {
+            Optional<WaitlistEntry> entry = waitlistRepository.findByTimeSlotsIDAndStudentID(timeSlotId, student.getStudentID());
+            if (entry.isPresent()) {
+                return buildWaitlistResponse(entry.get());
+            }
+        }
+        return WaitlistResponse.builder()
+                .timeSlotId(timeSlotId)
+                .waitingCount(waitlistRepository.countByTimeSlotsID(timeSlotId))
+                .build();
+    }
+
+    private WaitlistResponse buildWaitlistResponse(WaitlistEntry entry) {
+        return WaitlistResponse.builder()
+                .timeSlotId(entry.getTimeSlotsID())
+                .studentId(entry.getStudentID())
+                .position(waitlistRepository.countByTimeSlotsIDAndEntryIDLessThanEqual(entry.getTimeSlotsID(), entry.getEntryID()))
+                .waitingCount(waitlistRepository.countByTimeSlotsID(entry.getTimeSlotsID()))
+                .joinedAt(entry.getCreatedAt())
+                .build();
+    }
+
+    /*
+     * Chạy trong transaction vừa trả chỗ: row TimeSlots đã bị khóa bởi releaseSeat nên
+     * không request book nào chen vào giữa. Người chờ đã có lịch ở slot này thì bị bỏ qua.
+     */
+    private void promoteFromWaitlist(String timeSlotId) {
+        while (true) {
+            List<WaitlistEntry> head = waitlistRepository.findHeadForUpdate(timeSlotId, PageRequest.of(0, 1));
+            if (head.isEmpty()) {
+                return;
+            }
+            WaitlistEntry entry = head.get(0);
+            if (appointmentRepository.existsByStudentIDAndTimeSlotsID(entry.getStudentID(), timeSlotId)) {
+                waitlistRepository.delete(entry);
+                continue;
+            }
+            Students student = studentRepository.findById(entry.getStudentID()).orElse(null);
+            if (student == null) {
+                waitlistRepository.delete(entry);
+                continue;
+            }
+            // Không giữ được chỗ (số đếm lệch, releaseSeat không trả được chỗ nào) thì người chờ vẫn ở đầu hàng
+            if (timeSlotRepository.reserveSeat(timeSlotId) == 0) {
+                return;
+            }
+            waitlistRepository.delete(entry);
+            slotAvailabilityIndex.slotBooked(timeSlotId);
+            TimeSlots timeSlot = timeSlotRepository.findByIdWithPsychologist(timeSlotId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Time slot not found with id: " + timeSlotId));
+            createAppointment(student, timeSlot, "Waitlist Appointment Confirmed");
+            return;
+        }
+    }
+
+    private void reserveSeat(String timeSlotId) {
+        if (timeSlotRepository.reserveSeat(timeSlotId) == 0) {
+            if (!timeSlotRepository.existsById(timeSlotId)) {
+                throw new ResourceNotFoundException("Time slot not found with id: " + timeSlotId);
+            }
+            throw new ResourceAlreadyExistsException("Time slot is full, join its waitlist instead");
+        }
+        slotAvailabilityIndex.slotBooked(timeSlotId);
+    }
+
+    private void releaseSeat(String timeSlotId) {
+        if (timeSlotRepository.releaseSeat(timeSlotId) > 0) {
+            slotAvailabilityIndex.slotReleased(timeSlotId);
         }
     }
 
@@ -0,0 +1,213 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.entity.Appointments;
+import com.healthy.backend.entity.Psychologists;
+import com.healthy.backend.entity.StatsRollupState;
+import com.healthy.backend.entity.SurveyResult;
+import com.healthy.backend.enums.AppointmentStatus;
+import com.healthy.backend.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Bảng rollup theo ngày cho dashboard của manager: (ngày, department, status) -> số appointment và
+ * (ngày, category) -> số survey result. Được cộng/trừ cùng transaction với thay đổi ở bảng gốc;
+ * dữ liệu cũ được backfill theo từng đoạn ngày, lưu tiến độ trong StatsRollupState để chạy tiếp được.
+ * Dashboard chỉ đọc rollup khi backfill đã xong. Mỗi thay đổi cũng xóa các entry của {@link DashboardStatsCache}
+ * có khoảng ngày chứa ngày đó.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardRollupService.class);
+
+    private static final String STATE_NAME = "dashboard";
+    private static final String NO_DEPARTMENT = "";
+    // Cận của kiểu DATE trong MySQL, dùng khi dashboard không lọc theo ngày
+    private static final LocalDate MIN_DATE = LocalDate.of(1000, 1, 1);
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final AppointmentDailyStatRepository appointmentDailyStatRepository;
+    private final SurveyDailyStatRepository surveyDailyStatRepository;
+    private final StatsRollupStateRepository statsRollupStateRepository;
+    private final AppointmentRepository appointmentRepository;
+    private final SurveyResultRepository surveyResultRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final DashboardStatsCache dashboardStatsCache;
+
+    @Value("${app.stats-rollup.backfill-chunk-days:31}")
+    private int chunkDays;
+
+    /* Cập nhật tăng dần, gọi ngay sau khi lưu thay đổi ở bảng gốc */
+
+    public void appointmentCreated(Appointments appointment) {
+        incrementAppointments(appointment, departmentOf(appointment.getPsychologist()), appointment.getStatus(), 1);
+    }
+
+    public void appointmentStatusChanged(Appointments appointment, AppointmentStatus previousStatus) {
+        if (previousStatus == appointment.getStatus()) {
+            return;
+        }
+        String departmentId = departmentOf(appointment.getPsychologist());
+        incrementAppointments(appointment, departmentId, previousStatus, -1);
+        incrementAppointments(appointment, departmentId, appointment.getStatus(), 1);
+    }
+
+    // Đổi sang slot của psychologist khác department
+    public void appointmentMoved(Appointments appointment, Psychologists from, Psychologists to) {
+        String previousDepartmentId = departmentOf(from);
+        String departmentId = departmentOf(to);
+        if (previousDepartmentId.equals(departmentId)) {
+            return;
+        }
+        incrementAppointments(appointment, previousDepartmentId, appointment.getStatus(), -1);
+        incrementAppointments(appointment, departmentId, appointment.getStatus(), 1);
+    }
+
+    public void surveyResultCreated(SurveyResult surveyResult) {
+        if (surveyResult.getCreatedAt() != null) {
+            LocalDate statDate = surveyResult.getCreatedAt().toLocalDate();
+            surveyDailyStatRepository.increment(statDate, surveyResult.getSurveyID(), 1);
+            dashboardStatsCache.evict(statDate);
+        }
+    }
+
+    // Bulk submission: count kết quả của cùng một survey, tạo trong cùng một ngày
+    public void surveyResultsCreated(String surveyId, LocalDate statDate, int count) {
+        if (count > 0) {
+            surveyDailyStatRepository.increment(statDate, surveyId, count);
+            dashboardStatsCache.evict(statDate);
+        }
+    }
+
+    /* Đọc cho dashboard; from/to null nghĩa là không giới hạn */
+
+    public boolean isReady() {
+        return statsRollupStateRepository.findById(STATE_NAME)
+                .map(state -> state.getCompletedAt() != null)
+                .orElse(false);
+    }
+
+    // (AppointmentStatus, Long)
+    public List<Object[]> sumAppointmentsByStatus(LocalDate from, LocalDate to) {
+        return appointmentDailyStatRepository.sumByStatusBetween(lower(from), upper(to));
+    }
+
+    // (department name, Long)
+    public List<Object[]> sumAppointmentsByDepartment(AppointmentStatus status, LocalDate from, LocalDate to) {
+        return appointmentDailyStatRepository.sumByDepartmentBetween(status, lower(from), upper(to));
+    }
+
+    // (SurveyCategory, Long)
+    public List<Object[]> sumSurveyResultsByCategory(LocalDate from, LocalDate to) {
+        return surveyDailyStatRepository.sumByCategoryBetween(lower(from), upper(to));
+    }
+
+    /* Backfill */
+
+    // Bắt đầu lại từ đầu; dashboard quay về đọc bảng gốc cho tới khi backfill xong
+    public void rebuild() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            StatsRollupState state = statsRollupStateRepository.findForUpdate(STATE_NAME)
+                    .orElseGet(() -> new StatsRollupState(STATE_NAME));
+            state.setBackfilledThrough(null);
+            state.setCompletedAt(null);
+            statsRollupStateRepository.save(state);
+            dashboardStatsCache.evictAll();
+        });
+        logger.info("Dashboard rollup rebuild requested");
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats-rollup.backfill-interval-ms:60000}")
+    public void backfill() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        try {
+            // Mỗi đoạn một transaction, dừng giữa chừng thì lần sau chạy tiếp từ BackfilledThrough
+            boolean more;
+            do {
+                more = Boolean.TRUE.equals(transactionTemplate.execute(status -> backfillChunk()));
+            } while (more);
+        } catch (Exception e) {
+            logger.error("Dashboard rollup backfill failed, will resume on next run", e);
+        }
+    }
+
+    // true nếu còn đoạn cần backfill
+    private boolean backfillChunk() {
+        StatsRollupState state = statsRollupStateRepository.findForUpdate(STATE_NAME)
+                .orElseGet(() -> statsRollupStateRepository.saveAndFlush(new StatsRollupState(STATE_NAME)));
+        if (state.getCompletedAt() != null) {
+            return false;
+        }
+
+        LocalDate today = LocalDate.now();
+        LocalDate from = state.getBackfilledThrough() != null
+                ? state.getBackfilledThrough().plusDays(1)
+                : earliestDate(today);
+        LocalDate to = from.plusDays(chunkDays - 1L);
+        if (to.isAfter(today)) {
+            to = today;
+        }
+
+        if (!from.isAfter(to)) {
+            // Xóa cả phần đã cộng tăng dần trong đoạn này rồi đếm lại từ bảng gốc
+            appointmentDailyStatRepository.deleteBetween(from, to);
+            appointmentDailyStatRepository.rebuildBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+            surveyDailyStatRepository.deleteBetween(from, to);
+            surveyDailyStatRepository.rebuildBetween(from.atStartOfDay(), to.plusDays(1).atStartOfDay());
+            state.setBackfilledThrough(to);
+            logger.info("Dashboard rollup backfilled {} to {}", from, to);
+        }
+
+        if (!to.isBefore(today)) {
+            state.setCompletedAt(LocalDateTime.now());
+            dashboardStatsCache.evictAll();
+            logger.info("Dashboard rollup backfill completed");
+        }
+        statsRollupStateRepository.save(state);
+        return state.getCompletedAt() == null;
+    }
+
+    private LocalDate earliestDate(LocalDate today) {
+        LocalDate earliest = today;
+        for (LocalDateTime createdAt : new LocalDateTime[]{
+                appointmentRepository.findEarliestCreatedAt(), surveyResultRepository.findEarliestCreatedAt()}) {
+            if (createdAt != null && createdAt.toLocalDate().isBefore(earliest)) {
+                earliest = createdAt.toLocalDate();
+            }
+        }
+        return earliest;
+    }
+
+    private void incrementAppointments(Appointments appointment, String departmentId, AppointmentStatus status, long delta) {
+        if (appointment.getCreatedAt() == null || status == null) {
+            return;
+        }
+        LocalDate statDate = appointment.getCreatedAt().toLocalDate();
+        appointmentDailyStatRepository.increment(statDate, departmentId, status.name(), delta);
+        dashboardStatsCache.evict(statDate);
+    }
+
+    private static String departmentOf(Psychologists psychologist) {
+        return psychologist == null || psychologist.getDepartmentID() == null ? NO_DEPARTMENT : psychologist.getDepartmentID();
+    }
+
+    private static LocalDate lower(LocalDate from) {
+        return from != null ? from : MIN_DATE;
+    }
+
+    private static LocalDate upper(LocalDate to) {
+        return to != null ? to : MAX_DATE;
+    }
+}
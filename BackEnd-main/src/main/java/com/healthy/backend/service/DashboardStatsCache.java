@@ -0,0 +1,133 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.dto.manager.DashboardCacheStatsResponse;
+import com.healthy.backend.dto.manager.ManagerDashboardResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache kết quả dashboard theo khoảng ngày đã resolve (filter/value khác nhau nhưng cùng khoảng dùng chung một entry).
+ * Entry hết hạn sau {@code ttl}, hoặc bị xóa khi có thay đổi rơi vào khoảng ngày của nó.
+ * Nhiều request cùng miss một key thì chỉ request đầu tiên tính, các request còn lại chờ kết quả đó.
+ */
+@Component
+public class DashboardStatsCache {
+
+    private record Key(LocalDate start, LocalDate end) {
+
+        // null ở một đầu nghĩa là không giới hạn
+        boolean covers(LocalDate date) {
+            return (start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end));
+        }
+    }
+
+    private static final class Entry {
+        final CompletableFuture<ManagerDashboardResponse> result = new CompletableFuture<>();
+        // Chỉ đặt khi tính xong; trong lúc đang tính thì entry luôn còn hiệu lực
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isStale(long now) {
+            return result.isCompletedExceptionally() || now >= expiresAt;
+        }
+    }
+
+    private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder computeNanos = new LongAdder();
+    private final AtomicLong maxComputeNanos = new AtomicLong();
+
+    @Value("${app.dashboard-cache.ttl-ms:60000}")
+    private long ttlMillis;
+
+    public ManagerDashboardResponse get(LocalDate start, LocalDate end, Supplier<ManagerDashboardResponse> loader) {
+        Key key = new Key(start, end);
+        long now = System.nanoTime();
+
+        Entry fresh = new Entry();
+        Entry current = entries.compute(key, (k, existing) -> existing == null || existing.isStale(now) ? fresh : existing);
+        if (current != fresh) {
+            if (current.result.isDone()) {
+                hits.increment();
+            } else {
+                coalesced.increment();
+            }
+            return await(current);
+        }
+
+        misses.increment();
+        try {
+            ManagerDashboardResponse response = loader.get();
+            current.expiresAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+            current.result.complete(response);
+            return response;
+        } catch (Throwable e) {
+            // Kể cả Error: entry phải được gỡ và future phải kết thúc, nếu không các request chờ sẽ treo mãi
+            entries.remove(key, current);
+            current.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - now;
+            computeNanos.add(elapsed);
+            maxComputeNanos.accumulateAndGet(elapsed, Math::max);
+        }
+    }
+
+    // Xóa các entry có khoảng ngày chứa date; chạy sau khi transaction commit để request sau đọc được dữ liệu mới
+    public void evict(LocalDate date) {
+        TransactionHooks.afterCommit(() -> entries.keySet().removeIf(key -> {
+            boolean affected = key.covers(date);
+            if (affected) {
+                evictions.increment();
+            }
+            return affected;
+        }));
+    }
+
+    public void evictAll() {
+        TransactionHooks.afterCommit(() -> {
+            evictions.add(entries.size());
+            entries.clear();
+        });
+    }
+
+    public DashboardCacheStatsResponse getStats() {
+        long computed = misses.sum();
+        return DashboardCacheStatsResponse.builder()
+                .hits(hits.sum())
+                .misses(computed)
+                .coalesced(coalesced.sum())
+                .evictions(evictions.sum())
+                .size(entries.size())
+                .averageComputeMillis(computed == 0 ? 0 : computeNanos.sum() / 1_000_000.0 / computed)
+                .maxComputeMillis(maxComputeNanos.get() / 1_000_000.0)
+                .build();
+    }
+
+    private static ManagerDashboardResponse await(Entry entry) {
+        try {
+            return entry.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
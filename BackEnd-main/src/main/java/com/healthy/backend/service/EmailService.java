@@ -21,7 +21,7 @@ public class EmailService {
         return EmailTemplate.getEmailBody(subject, content, name);
     }
 
-    @Async
+    // Gọi từ OutboxDispatcher nên gửi đồng bộ và ném lỗi ra ngoài để event được retry
     public void sendNewAppointmentEmail(String email, String psychologistName, Students student, String ID, TimeSlots timeSlots ,String subject) {
         String content = subject.toLowerCase().contains("transfer") ? "We are pleased to informed that an appointment of yours has been transferred.\n\n" +
                 "The details of the transferred appointment are as follows:\n\n" +
@@ -40,7 +40,7 @@ public class EmailService {
                 "**Date:** " + timeSlots.getSlotDate() + "\n" +
                 "**Time:** " + timeSlots.getStartTime() + " - " + timeSlots.getEndTime() + "\n\n" +
                 "Please log in to the system to view more details or manage your appointments.\n\n";
-        sendEmail(email, subject, content, psychologistName);
+        deliver(email, subject, content, psychologistName);
     }
 
     @Async
@@ -79,16 +79,20 @@ public class EmailService {
 
     private void sendEmail(String toEmail, String subject, String body, String name) {
         try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(mail);
-            message.setTo(toEmail);
-            message.setSubject(subject);
-            message.setText(getEmailBody(subject, body, name));
-            mailSender.send(message);
+            deliver(toEmail, subject, body, name);
         } catch (Exception e) {
             System.err.println("Error sending email: " + e.getMessage());
         }
     }
+
+    private void deliver(String toEmail, String subject, String body, String name) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(mail);
+        message.setTo(toEmail);
+        message.setSubject(subject);
+        message.setText(getEmailBody(subject, body, name));
+        mailSender.send(message);
+    }
 }
 
 class EmailTemplate {
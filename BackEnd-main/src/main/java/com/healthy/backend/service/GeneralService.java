@@ -5,6 +5,10 @@ import com.healthy.backend.repository.*;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
 @Component
 @RequiredArgsConstructor
 public class GeneralService {
@@ -23,82 +27,99 @@ public class GeneralService {
     private final SurveyQuestionRepository surveyQuestionRepository;
     private final SurveyResultRepository surveyResultRepository;
 
+    private final IdSequenceService idSequenceService;
+
 
 
 
 
 
     public String generateDepartmentID() {
-        String lastCode = departmentRepository.findLastDepartmentId();
-        return generateNextId(Identifier.DPT.toString(), lastCode);
+        return generateNextId(Identifier.DPT, departmentRepository::findLastDepartmentId);
     }
 
     public String generateUserLogID() {
-        String lastCode = userLogRepository.findLastUserLogId();
-        return generateNextId(Identifier.LOG.toString(), lastCode);
+        return generateEncodedId(Identifier.LOG, userLogRepository::findLastUserLogId);
     }
 
 
 
     public String generateSurveyID() {
-        String lastCode = surveyRepository.findLastSurveyId();
-        return generateNextId(Identifier.SUV.toString(), lastCode);
+        return generateNextId(Identifier.SUV, surveyRepository::findLastSurveyId);
     }
 
 
 
     public String generateUserID() {
-        String lastCode = userRepository.findLastUserId();
-        return generateNextId(Identifier.UID.toString(), lastCode);
+        return generateNextId(Identifier.UID, userRepository::findLastUserId);
     }
 
     public String generateParentID() {
-        String lastCode = parentRepository.findLastParentId();
-        return generateNextId(Identifier.PAR.toString(), lastCode);
+        return generateNextId(Identifier.PAR, parentRepository::findLastParentId);
     }
 
     public String generateStudentID() {
-        String lastCode = studentRepository.findLastStudentId();
-        return generateNextId(Identifier.STU.toString(), lastCode);
+        return generateNextId(Identifier.STU, studentRepository::findLastStudentId);
     }
 
     public String generatePsychologistID() {
-        String lastCode = psychologistRepository.findLastPsychologistId();
-        return generateNextId(Identifier.PSY.toString(), lastCode);
+        return generateNextId(Identifier.PSY, psychologistRepository::findLastPsychologistId);
     }
 
 
 
     public String generateNextNotificationID() {
-        String lastCode = notificationRepository.findLastNotificationId();
-        return generateNextId(Identifier.NOT.toString(), lastCode);
+        return generateEncodedId(Identifier.NOT, notificationRepository::findLastNotificationId);
     }
 
     public String generateAppointmentId() {
-        String lastCode = appointmentRepository.findLastAppointmentId();
-        return generateNextId(Identifier.APP.toString(), lastCode);
+        return generateEncodedId(Identifier.APP, appointmentRepository::findLastAppointmentId);
     }
 
     public String generateQuestionOptionId() {
-        String lastCode = surveyQuestionOptionsRepository.findLastQuestionOptionId();
-        return generateNextId(Identifier.SQO.toString(), lastCode);
+        return generateNextId(Identifier.SQO, surveyQuestionOptionsRepository::findLastQuestionOptionId);
     }
 
     public String generateSurveyQuestionId() {
-        String lastCode = surveyQuestionRepository.findLastQuestionId();
-        return generateNextId(Identifier.SQR.toString(), lastCode);
+        return generateNextId(Identifier.SQR, surveyQuestionRepository::findLastQuestionId);
     }
 
     public String generateSurveyResultId() {
-        String lastCode = surveyResultRepository.findLastResultId();
-        return generateNextId(Identifier.SRS.toString(), lastCode);
+        return generateEncodedId(Identifier.SRS, surveyResultRepository::findLastResultId);
+    }
+
+    // Bulk submission: reserve every ID in one lease instead of one sequence call per result
+    public List<String> generateSurveyResultIds(int count) {
+        long first = idSequenceService.nextRange(Identifier.SRS, count,
+                () -> lastEncodedNumber(surveyResultRepository.findLastResultId()));
+        List<String> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ids.add(IdCodec.encode(Identifier.SRS, first + i));
+        }
+        return ids;
     }
 
-    private String generateNextId(String prefix, String lastId) {
-        int nextNumber = lastId == null ? 1 : parseId(lastId) + 1;
+    private String generateNextId(Identifier prefix, Supplier<String> lastIdLookup) {
+        long nextNumber = idSequenceService.next(prefix, () -> {
+            String lastId = lastIdLookup.get();
+            return lastId == null ? 0 : parseId(lastId);
+        });
         return prefix + String.format("%03d", nextNumber);
     }
 
+    // Fixed-width IDs for high-volume tables, see IdCodec
+    private String generateEncodedId(Identifier prefix, Supplier<String> lastIdLookup) {
+        long nextNumber = idSequenceService.next(prefix, () -> lastEncodedNumber(lastIdLookup.get()));
+        return IdCodec.encode(prefix, nextNumber);
+    }
+
+    private long lastEncodedNumber(String lastId) {
+        if (lastId == null) {
+            return 0;
+        }
+        return IdCodec.isEncoded(lastId) ? IdCodec.decode(lastId) : parseId(lastId);
+    }
+
 
     private int parseId(String lastId) {
         try {
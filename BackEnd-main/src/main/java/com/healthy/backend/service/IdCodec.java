@@ -0,0 +1,49 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.enums.Identifier;
+
+/**
+ * Fixed-width, order-preserving ID format: the 3-letter {@link Identifier} prefix followed by
+ * the number in base-32 ("extended hex" digits 0-9A-V), left padded to {@link #BODY_WIDTH}.
+ * Because every body has the same width and the digits are in ASCII order, comparing two IDs
+ * as strings gives the same result as comparing their numbers, e.g. APP00000V9 &lt; APP0000100.
+ * The digit set matches MySQL's CONV(n, 10, 32), so existing keys can be converted in SQL.
+ */
+public final class IdCodec {
+
+    public static final int BODY_WIDTH = 7;
+    public static final long MAX_VALUE = (1L << (5 * BODY_WIDTH)) - 1;
+
+    private static final int RADIX = 32;
+
+    private IdCodec() {
+    }
+
+    public static String encode(Identifier prefix, long number) {
+        if (number < 0 || number > MAX_VALUE) {
+            throw new IllegalArgumentException("ID number out of range for " + prefix + ": " + number);
+        }
+        String body = Long.toString(number, RADIX).toUpperCase();
+        return prefix + "0".repeat(BODY_WIDTH - body.length()) + body;
+    }
+
+    public static long decode(String id) {
+        if (!isEncoded(id)) {
+            throw new IllegalArgumentException("Invalid encoded ID: " + id);
+        }
+        return Long.parseLong(id.substring(id.length() - BODY_WIDTH), RADIX);
+    }
+
+    public static boolean isEncoded(String id) {
+        if (id == null || id.length() != 3 + BODY_WIDTH) {
+            return false;
+        }
+        for (int i = 3; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (!(c >= '0' && c <= '9') && !(c >= 'A' && c <= 'V')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
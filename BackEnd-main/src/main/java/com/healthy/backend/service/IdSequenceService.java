@@ -0,0 +1,117 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.entity.IdSequence;
+import com.healthy.backend.enums.Identifier;
+import com.healthy.backend.repository.IdSequenceRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Hands out numeric IDs per {@link Identifier} prefix from blocks leased out of the IdSequences table.
+ * A lease is a short transaction of its own, so several nodes can share one sequence without
+ * handing out the same number, and IDs inside a block cost no database round-trip at all.
+ * Numbers left in a block when the node stops are skipped, never reused.
+ */
+@Service
+@RequiredArgsConstructor
+public class IdSequenceService {
+
+    private final IdSequenceRepository idSequenceRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.id-sequence.block-size:50}")
+    private int blockSize;
+
+    private final ConcurrentMap<Identifier, IdBlock> blocks = new ConcurrentHashMap<>();
+    private final Map<Identifier, Object> leaseLocks = createLeaseLocks();
+
+    /**
+     * Returns the next number for the prefix.
+     *
+     * @param lastUsed looked up only when the prefix has no sequence row yet, to continue after existing data
+     */
+    public long next(Identifier prefix, LongSupplier lastUsed) {
+        while (true) {
+            IdBlock block = blocks.get(prefix);
+            if (block != null) {
+                long value = block.next.getAndIncrement();
+                if (value < block.limit) {
+                    return value;
+                }
+            }
+            synchronized (leaseLocks.get(prefix)) {
+                // Only the first thread to find the block exhausted leases a new one
+                if (blocks.get(prefix) == block) {
+                    blocks.put(prefix, lease(prefix, lastUsed));
+                }
+            }
+        }
+    }
+
+    /**
+     * Reserves {@code count} consecutive numbers in a single lease, bypassing the cached block.
+     * Meant for bulk inserts that would otherwise drain several blocks one ID at a time.
+     *
+     * @return the first reserved number; the range is {@code [first, first + count)}
+     */
+    public long nextRange(Identifier prefix, int count, LongSupplier lastUsed) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        return lease(prefix, count, lastUsed).next.get();
+    }
+
+    private IdBlock lease(Identifier prefix, LongSupplier lastUsed) {
+        return lease(prefix, blockSize, lastUsed);
+    }
+
+    private IdBlock lease(Identifier prefix, int size, LongSupplier lastUsed) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            return transaction.execute(status -> reserve(prefix, size, lastUsed));
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the sequence row at the same time, lock it this time
+            return transaction.execute(status -> reserve(prefix, size, lastUsed));
+        }
+    }
+
+    private IdBlock reserve(Identifier prefix, int size, LongSupplier lastUsed) {
+        IdSequence sequence = idSequenceRepository.findForUpdate(prefix.name())
+                .orElseGet(() -> new IdSequence(prefix.name(), lastUsed.getAsLong() + 1));
+        long start = sequence.getNextValue();
+        sequence.setNextValue(start + size);
+        idSequenceRepository.saveAndFlush(sequence);
+        return new IdBlock(start, start + size);
+    }
+
+    private static Map<Identifier, Object> createLeaseLocks() {
+        Map<Identifier, Object> locks = new EnumMap<>(Identifier.class);
+        for (Identifier identifier : Identifier.values()) {
+            locks.put(identifier, new Object());
+        }
+        return locks;
+    }
+
+    private static final class IdBlock {
+        private final AtomicLong next;
+        private final long limit;
+
+        private IdBlock(long start, long limit) {
+            this.next = new AtomicLong(start);
+            this.limit = limit;
+        }
+    }
+}
@@ -1,11 +1,18 @@
 package com.healthy.backend.service;
 
 import com.healthy.backend.dto.manager.AppointmentStatsResponse;
+import com.healthy.backend.dto.manager.DashboardCacheStatsResponse;
+import com.healthy.backend.dto.manager.DepartmentStatsResponse;
+import com.healthy.backend.dto.manager.KpiBulkRequest;
+import com.healthy.backend.dto.manager.KpiBulkResponse;
 import com.healthy.backend.dto.manager.ManagerDashboardResponse;
 import com.healthy.backend.dto.manager.PsychologistStatsResponse;
+import com.healthy.backend.dto.manager.SessionLatencyResponse;
 import com.healthy.backend.entity.*;
 import com.healthy.backend.enums.AppointmentStatus;
 import com.healthy.backend.enums.SurveyCategory;
+import com.healthy.backend.exception.ResourceInvalidException;
+import com.healthy.backend.exception.ResourceNotFoundException;
 import com.healthy.backend.repository.*;
 import com.healthy.backend.stats.AppointmentStats;
 import com.healthy.backend.stats.DepartmentStats;
@@ -16,6 +23,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.JpaSort;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
@@ -23,7 +34,7 @@ import java.time.*;
 import java.time.temporal.ChronoUnit;
 import java.time.temporal.IsoFields;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.TimeUnit;
 import java.time.Year;
 
 @Service
@@ -33,11 +44,14 @@ public class ManagerService {
     private final AppointmentRepository appointmentRepository;
     private final PsychologistRepository psychologistRepository;
     private final PsychologistKPIRepository kpiRepository;
+    private final PsychologistKpiWriter kpiWriter;
     private final NotificationScheduleRepository notificationScheduleRepository;
     private  final GeneralService generalService;
 
     private final SurveyResultRepository surveyResultRepository;
-    private final SurveyRepository surveyRepository;
+    private final DashboardRollupService dashboardRollupService;
+    private final DashboardStatsCache dashboardStatsCache;
+    private final SessionLatencyAnalytics sessionLatencyAnalytics;
 
     private NotificationSchedule cachedSchedule = null;
     private LocalDateTime lastScheduleCheck = null;
@@ -45,6 +59,17 @@ public class ManagerService {
     private final Object notificationLock = new Object();
     private static final Logger logger = LoggerFactory.getLogger(ManagerService.class);
 
+    private static final List<Integer> ALL_MONTHS = List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12);
+
+    // sortBy accepted by getPsychologistStats -> aggregate expression in findPsychologistStats
+    private static final Map<String, String> PSYCHOLOGIST_STATS_SORTS = Map.of(
+            "appointmentCount", "COUNT(a)",
+            "averageRating", "AVG(a.rating)",
+            "completedCount", "SUM(CASE WHEN a.status = com.healthy.backend.enums.AppointmentStatus.COMPLETED THEN 1 ELSE 0 END)",
+            "cancelledCount", "SUM(CASE WHEN a.status = com.healthy.backend.enums.AppointmentStatus.CANCELLED THEN 1 ELSE 0 END)",
+            "fullName", "u.fullName"
+    );
+
 
 
 
@@ -52,94 +77,58 @@ public class ManagerService {
     public ManagerDashboardResponse getDashboardStats(String filter, Integer value) {
         LocalDate[] dateRange = resolveDateRange(filter, value);
 
-        return new ManagerDashboardResponse(
+        // Cache theo khoảng ngày đã resolve, bị xóa khi có booking/cancel/check-out/survey trong khoảng đó
+        return dashboardStatsCache.get(dateRange[0], dateRange[1], () -> new ManagerDashboardResponse(
                 calculateSurveyStats(dateRange),
                 calculateAppointmentStats(dateRange),
                 calculateDepartmentStats(dateRange)
+        ));
+    }
 
-        );
+    public DashboardCacheStatsResponse getDashboardCacheStats() {
+        return dashboardStatsCache.getStats();
     }
 
+    // Một query lấy KPI đã có của năm nay rồi insert theo batch phần còn thiếu
     @EventListener(ApplicationReadyEvent.class)
+    @Transactional
     public void initDefaultKPIs() {
-        int currentYear = Year.now().getValue();
-        List<Psychologists> psychologists = psychologistRepository.findAll();
-
-        psychologists.forEach(psychologist -> {
-            for (int month = 1; month <= 12; month++) {
-                PsychologistKPI existingKpi = kpiRepository.findByPsychologistIdAndMonthAndYear(
-                        psychologist.getPsychologistID(),
-                        month,
-                        currentYear
-                );
-
-                if (existingKpi == null) {
-                    PsychologistKPI kpi = new PsychologistKPI();
-                    kpi.setId(psychologist.getPsychologistID() + "-" + month + "-" + currentYear);
-                    kpi.setPsychologistId(psychologist.getPsychologistID());
-                    kpi.setMonth(month);
-                    kpi.setYear(currentYear);
-                    kpi.setTargetSlots(30);
-                    kpi.setAchievedSlots(0);
-                    kpiRepository.save(kpi);
-                }
-            }
-        });
+        long start = System.nanoTime();
+        List<String> psychologistIds = psychologistRepository.findAllIds();
+        PsychologistKpiWriter.Result result = kpiWriter.createMissing(
+                psychologistIds, Year.now().getValue(), ALL_MONTHS, PsychologistKpiWriter.DEFAULT_TARGET_SLOTS);
+        logger.info("Default KPIs for {} psychologists ready in {} ms ({} created)",
+                psychologistIds.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), result.created());
     }
 
 
     private SurveyStats calculateSurveyStats(LocalDate[] dateRange) {
         Map<String, Double> rates = new HashMap<>();
 
-        // Convert LocalDate to LocalDateTime
-        LocalDateTime startDateTime = dateRange[0] != null ? dateRange[0].atStartOfDay() : null;
-        LocalDateTime endDateTime = dateRange[1] != null ? dateRange[1].atTime(23, 59, 59) : null;
-
-        // Count survey results by category within date range
-        Map<String, Long> resultCountsByCategory = new HashMap<>();
-        long totalResults = 0;
-
-        // Get all surveys with their categories
-        List<Surveys> allSurveys = surveyRepository.findAll();
-        Map<String, SurveyCategory> surveyCategories = allSurveys.stream()
-                .collect(Collectors.toMap(Surveys::getSurveyID, survey -> survey.getCategory().getCategoryName()));
-
-        // Initialize counters for each category
-        for (SurveyCategory category : SurveyCategory.values()) {
-            resultCountsByCategory.put(category.name(), 0L);
-        }
-
-        // Get all survey results within the date range
-        List<SurveyResult> allResults;
-        if (startDateTime != null && endDateTime != null) {
-            // This would require a custom query in the repository
-            // For now, we'll filter after fetching all results
-            allResults = surveyResultRepository.findAll().stream()
-                    .filter(result -> !result.getCreatedAt().isBefore(startDateTime) &&
-                            !result.getCreatedAt().isAfter(endDateTime))
-                    .collect(Collectors.toList());
+        // Đếm số kết quả theo category: từ rollup theo ngày nếu đã backfill xong, không thì GROUP BY trên bảng gốc
+        List<Object[]> rows;
+        if (dashboardRollupService.isReady()) {
+            rows = dashboardRollupService.sumSurveyResultsByCategory(dateRange[0], dateRange[1]);
+        } else if (dateRange[0] != null && dateRange[1] != null) {
+            rows = surveyResultRepository.countByCategoryBetween(
+                    dateRange[0].atStartOfDay(), dateRange[1].plusDays(1).atStartOfDay());
         } else {
-            allResults = surveyResultRepository.findAll();
+            rows = surveyResultRepository.countByCategory();
         }
 
-        // Count results by category
-        for (SurveyResult result : allResults) {
-            String surveyId = result.getSurveyID();
-            SurveyCategory category = surveyCategories.get(surveyId);
-
-            if (category != null) {
-                String categoryName = category.name();
-                resultCountsByCategory.put(categoryName, resultCountsByCategory.get(categoryName) + 1);
-                totalResults++;
-            }
+        Map<SurveyCategory, Long> resultCountsByCategory = new EnumMap<>(SurveyCategory.class);
+        long totalResults = 0;
+        for (Object[] row : rows) {
+            long count = (Long) row[1];
+            resultCountsByCategory.put((SurveyCategory) row[0], count);
+            totalResults += count;
         }
 
         // Calculate percentages
         for (SurveyCategory category : SurveyCategory.values()) {
-            String categoryName = category.name();
-            long count = resultCountsByCategory.get(categoryName);
+            long count = resultCountsByCategory.getOrDefault(category, 0L);
             double percentage = totalResults > 0 ? (count * 100.0) / totalResults : 0;
-            rates.put(categoryName, percentage);
+            rates.put(category.name(), percentage);
         }
 
         SurveyStats stats = new SurveyStats();
@@ -228,18 +217,38 @@ public class ManagerService {
 
     @Transactional
     public void setKpiForPsychologist(String psychologistId, int month, int year, int targetSlots) {
-        PsychologistKPI kpi = kpiRepository.findByPsychologistIdAndMonthAndYear(psychologistId, month, year);
-
-        if (kpi == null) {
-            kpi = new PsychologistKPI();
-            kpi.setId(psychologistId + "-" + month + "-" + year);
-            kpi.setPsychologistId(psychologistId);
-            kpi.setMonth(month);
-            kpi.setYear(year);
+        kpiWriter.setTargets(List.of(psychologistId), year, List.of(month), targetSlots);
+    }
+
+    // Đặt target cho cả department và/hoặc danh sách psychologist, nhiều tháng cùng lúc
+    @Transactional
+    public KpiBulkResponse setKpiBulk(KpiBulkRequest request) {
+        Set<String> psychologistIds = new LinkedHashSet<>();
+        if (request.getDepartmentId() != null) {
+            psychologistIds.addAll(psychologistRepository.findIdsByDepartmentID(request.getDepartmentId()));
+        }
+        if (request.getPsychologistIds() != null) {
+            Set<String> requested = new LinkedHashSet<>(request.getPsychologistIds());
+            if (psychologistRepository.findAllById(requested).size() != requested.size()) {
+                throw new ResourceNotFoundException("Some psychologists not found");
+            }
+            psychologistIds.addAll(requested);
+        }
+        if (psychologistIds.isEmpty()) {
+            throw new ResourceInvalidException("No psychologists selected, provide departmentId or psychologistIds");
+        }
+
+        List<Integer> months = request.getMonths() == null || request.getMonths().isEmpty()
+                ? ALL_MONTHS
+                : request.getMonths().stream().distinct().toList();
+        if (months.stream().anyMatch(month -> month < 1 || month > 12)) {
+            throw new ResourceInvalidException("Months must be between 1 and 12");
         }
 
-        kpi.setTargetSlots(targetSlots);
-        kpiRepository.save(kpi);
+        PsychologistKpiWriter.Result result = kpiWriter.setTargets(
+                psychologistIds, request.getYear(), months, request.getTargetSlots());
+        return new KpiBulkResponse(psychologistIds.size(), result.created(), result.updated(),
+                "KPI target set to " + request.getTargetSlots() + " for " + psychologistIds.size() + " psychologists");
     }
 
     @Transactional
@@ -262,45 +271,59 @@ public class ManagerService {
 
     // Method to get appointment statistics
     public AppointmentStatsResponse getAppointmentStats() {
-        List<Appointments> appointments = appointmentRepository.findAll();
-        Map<String, Long> appointmentCounts = appointments.stream()
-                .collect(Collectors.groupingBy(appointment -> appointment.getStatus().name(), Collectors.counting()));
+        long[] counts = countAppointmentsByStatus(new LocalDate[]{null, null});
+        Map<String, Long> appointmentCounts = new HashMap<>();
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            if (counts[status.ordinal()] > 0) {
+                appointmentCounts.put(status.name(), counts[status.ordinal()]);
+            }
+        }
 
         AppointmentStatsResponse response = new AppointmentStatsResponse();
         response.setAppointmentCounts(appointmentCounts);
         return response;
     }
 
-    public List<PsychologistStatsResponse> getPsychologistStats() {
-        List<Psychologists> psychologists = psychologistRepository.findAll();
-        List<Appointments> allAppointments = appointmentRepository.findAll();
+    /*
+     * Một query GROUP BY theo psychologist thay vì lọc toàn bộ appointments cho từng người.
+     * page/size null thì trả về tất cả (như trước đây).
+     */
+    public List<PsychologistStatsResponse> getPsychologistStats(LocalDate startDate, LocalDate endDate,
+                                                                String departmentId, String sortBy,
+                                                                String direction, Integer page, Integer size) {
+        String sortExpression = PSYCHOLOGIST_STATS_SORTS.get(sortBy == null ? "appointmentCount" : sortBy);
+        if (sortExpression == null) {
+            throw new ResourceInvalidException("sortBy must be one of " + PSYCHOLOGIST_STATS_SORTS.keySet());
+        }
+        Sort.Direction sortDirection = "asc".equalsIgnoreCase(direction) ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sort = JpaSort.unsafe(sortDirection, sortExpression).and(JpaSort.unsafe(Sort.Direction.ASC, "p.psychologistID"));
 
-        List<PsychologistStatsResponse> responses = new ArrayList<>();
-        for (Psychologists psychologist : psychologists) {
-            // Filter appointments belonging to the current psychologist
-            List<Appointments> filteredAppointments = allAppointments.stream()
-                    .filter(a -> psychologist.getPsychologistID().equals(a.getPsychologistID()))
-                    .collect(Collectors.toList());
-
-            long appointmentCount = filteredAppointments.size();
-            double averageRating = filteredAppointments.stream()
-                    .filter(a -> a.getRating() != null)
-                    .mapToInt(Appointments::getRating)
-                    .average()
-                    .orElse(0.0);
-
-            PsychologistStatsResponse statResponse = new PsychologistStatsResponse();
-            statResponse.setPsychologistId(psychologist.getPsychologistID());
-            statResponse.setFullName(psychologist.getFullNameFromUser());
-            statResponse.setAppointmentCount(appointmentCount);
-            statResponse.setAverageRating(averageRating);
-            responses.add(statResponse);
+        Pageable pageable;
+        if (page == null && size == null) {
+            pageable = Pageable.unpaged(sort);
+        } else {
+            int pageSize = size == null ? 20 : size;
+            if (pageSize < 1 || pageSize > 200 || (page != null && page < 0)) {
+                throw new ResourceInvalidException("page must be >= 0 and size between 1 and 200");
+            }
+            pageable = PageRequest.of(page == null ? 0 : page, pageSize, sort);
         }
-        return responses;
+
+        return appointmentRepository.findPsychologistStats(rangeStart(startDate), rangeEnd(endDate), departmentId, pageable);
+    }
+
+    // Số appointment, tỷ lệ hoàn thành và rating trung bình của từng department trong kỳ (week/month/year như dashboard)
+    public List<DepartmentStatsResponse> getDepartmentStats(String filter, Integer value) {
+        LocalDate[] dateRange = resolveDateRange(filter, value);
+        return appointmentRepository.findDepartmentStats(rangeStart(dateRange[0]), rangeEnd(dateRange[1]));
     }
 
 
 
+    public SessionLatencyResponse getSessionLatencyStats(String psychologistId, String departmentId) {
+        return sessionLatencyAnalytics.getStats(psychologistId, departmentId);
+    }
+
     private LocalDate[] resolveDateRange(String filter, Integer value) {
         LocalDate now = LocalDate.now();
         if (filter == null) return new LocalDate[]{null, null};
@@ -326,54 +349,72 @@ public class ManagerService {
 
 
     private AppointmentStats calculateAppointmentStats(LocalDate[] dateRange) {
-        Map<String, Double> distribution = new HashMap<>();
-
-        // Chuyển đổi LocalDate thành LocalDateTime
-        LocalDateTime startDateTime = dateRange[0] != null ? dateRange[0].atStartOfDay() : null;
-        LocalDateTime endDateTime = dateRange[1] != null ? dateRange[1].atTime(23, 59, 59) : null;
-
-        long total = appointmentRepository.countByDateRange(startDateTime, endDateTime);
+        long[] counts = countAppointmentsByStatus(dateRange);
+        long total = counts[counts.length - 1];
         if (total == 0) return new AppointmentStats();
 
-        Arrays.stream(AppointmentStatus.values()).forEach(status -> {
-            long count = appointmentRepository.countByStatusAndDateRange(status, startDateTime, endDateTime);
-            double percentage = (count * 100.0) / total;
-            distribution.put(status.name(), percentage);
-        });
+        Map<String, Double> distribution = new HashMap<>();
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            distribution.put(status.name(), (counts[status.ordinal()] * 100.0) / total);
+        }
 
         AppointmentStats stats = new AppointmentStats();
         stats.setStatusDistribution(distribution);
         return stats;
     }
-    private DepartmentStats calculateDepartmentStats(LocalDate[] dateRange) {
-        Map<String, Double> distribution = new HashMap<>();
 
-        // Chuyển đổi LocalDate sang LocalDateTime
-        LocalDateTime startDateTime = dateRange[0] != null ? dateRange[0].atStartOfDay() : null;
-        LocalDateTime endDateTime = dateRange[1] != null ? dateRange[1].atTime(23, 59, 59) : null;
+    /*
+     * Một query GROUP BY status; kết quả đánh index theo AppointmentStatus.ordinal(),
+     * phần tử cuối là tổng (kể cả appointment chưa có status).
+     */
+    private long[] countAppointmentsByStatus(LocalDate[] dateRange) {
+        List<Object[]> rows;
+        if (dashboardRollupService.isReady()) {
+            rows = dashboardRollupService.sumAppointmentsByStatus(dateRange[0], dateRange[1]);
+        } else if (dateRange[0] != null && dateRange[1] != null) {
+            rows = appointmentRepository.countByStatusBetween(
+                    dateRange[0].atStartOfDay(), dateRange[1].plusDays(1).atStartOfDay());
+        } else {
+            rows = appointmentRepository.countByStatus();
+        }
 
-        // Lấy tất cả appointments đã hoàn thành trong khoảng thời gian
-        List<Appointments> completedAppointments = appointmentRepository
-                .findByStatusAndDateRange(AppointmentStatus.COMPLETED, startDateTime, endDateTime);
+        long[] counts = new long[AppointmentStatus.values().length + 1];
+        for (Object[] row : rows) {
+            long count = (Long) row[1];
+            if (row[0] != null) {
+                counts[((AppointmentStatus) row[0]).ordinal()] = count;
+            }
+            counts[counts.length - 1] += count;
+        }
+        return counts;
+    }
 
-        // Tổng số appointments đã hoàn thành
-        long totalCompleted = completedAppointments.size();
+    private DepartmentStats calculateDepartmentStats(LocalDate[] dateRange) {
+        Map<String, Double> distribution = new HashMap<>();
 
-        if (totalCompleted == 0) return new DepartmentStats(distribution);
+        // Đếm appointment đã hoàn thành theo department ngay trong DB (rollup nếu đã sẵn sàng)
+        List<Object[]> rows = dashboardRollupService.isReady()
+                ? dashboardRollupService.sumAppointmentsByDepartment(AppointmentStatus.COMPLETED, dateRange[0], dateRange[1])
+                : appointmentRepository.countByDepartmentBetween(AppointmentStatus.COMPLETED,
+                        rangeStart(dateRange[0]), rangeEnd(dateRange[1]));
 
-        // Nhóm theo department và tính tỷ lệ
-        completedAppointments.stream()
-                .collect(Collectors.groupingBy(
-                        appointment -> appointment.getPsychologist().getDepartment().getName(),
-                        Collectors.counting()
-                ))
-                .forEach((departmentName, count) -> {
-                    double percentage = (count * 100.0) / totalCompleted;
-                    distribution.put(departmentName, percentage);
-                });
+        long totalCompleted = rows.stream().mapToLong(row -> (Long) row[1]).sum();
+        if (totalCompleted == 0) return new DepartmentStats(distribution);
 
+        for (Object[] row : rows) {
+            distribution.put((String) row[0], ((Long) row[1] * 100.0) / totalCompleted);
+        }
         return new DepartmentStats(distribution);
     }
 
+    // Không lọc ngày thì dùng cận rộng để câu query vẫn là một range bình thường
+    private static LocalDateTime rangeStart(LocalDate startDate) {
+        return startDate != null ? startDate.atStartOfDay() : LocalDateTime.of(1970, 1, 1, 0, 0);
+    }
+
+    private static LocalDateTime rangeEnd(LocalDate endDate) {
+        return endDate != null ? endDate.plusDays(1).atStartOfDay() : LocalDateTime.of(9999, 1, 1, 0, 0);
+    }
+
 
 }
\ No newline at end of file
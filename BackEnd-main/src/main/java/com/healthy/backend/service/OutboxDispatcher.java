@@ -0,0 +1,208 @@
+package com.healthy.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthy.backend.entity.OutboxEvent;
+import com.healthy.backend.entity.Students;
+import com.healthy.backend.entity.TimeSlots;
+import com.healthy.backend.enums.OutboxEventType;
+import com.healthy.backend.enums.OutboxStatus;
+import com.healthy.backend.exception.ResourceNotFoundException;
+import com.healthy.backend.repository.OutboxEventRepository;
+import com.healthy.backend.repository.StudentRepository;
+import com.healthy.backend.repository.TimeSlotRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drain bảng OutboxEvents theo batch và thực thi email / notification / KPI trên một pool worker có giới hạn.
+ * Event lỗi được retry với backoff lũy thừa; quá {@code maxAttempts} lần thì chuyển sang FAILED.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    // PROCESSING được claim lại khi lease hết hạn (node drain trước đó đã chết giữa chừng)
+    private static final EnumSet<OutboxStatus> CLAIMABLE = EnumSet.of(OutboxStatus.PENDING, OutboxStatus.PROCESSING);
+    private static final EnumSet<OutboxEventType> KPI_EVENTS =
+            EnumSet.of(OutboxEventType.KPI_SLOT_BOOKED, OutboxEventType.KPI_SLOT_RELEASED);
+    private static final Duration LEASE = Duration.ofMinutes(5);
+    private static final Duration BASE_BACKOFF = Duration.ofSeconds(10);
+    private static final Duration MAX_BACKOFF = Duration.ofMinutes(30);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final StudentRepository studentRepository;
+    private final TimeSlotRepository timeSlotRepository;
+    private final EmailService emailService;
+    private final NotificationService notificationService;
+    private final PsychologistService psychologistService;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.outbox.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.outbox.workers:2}")
+    private int workers;
+
+    @Value("${app.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    private TransactionTemplate transactionTemplate;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        AtomicInteger threadCount = new AtomicInteger();
+        // Queue đúng bằng một batch; nếu đầy thì thread scheduler tự chạy luôn (back-pressure)
+        executor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(batchSize),
+                r -> new Thread(r, "outbox-worker-" + threadCount.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${app.outbox.poll-interval-ms:1000}")
+    public void drain() {
+        List<OutboxEvent> batch;
+        do {
+            batch = claimBatch();
+            CompletableFuture.allOf(batch.stream()
+                    .map(event -> CompletableFuture.runAsync(() -> dispatch(event), executor))
+                    .toArray(CompletableFuture[]::new)).join();
+        } while (batch.size() == batchSize);
+    }
+
+    private List<OutboxEvent> claimBatch() {
+        return transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxEventRepository.findDueForUpdate(CLAIMABLE, now, PageRequest.of(0, batchSize));
+            for (OutboxEvent event : due) {
+                event.setStatus(OutboxStatus.PROCESSING);
+                event.setNextAttemptAt(now.plus(LEASE));
+            }
+            return due;
+        });
+    }
+
+    private void dispatch(OutboxEvent event) {
+        try {
+            process(event);
+        } catch (OptimisticLockingFailureException e) {
+            // Lease đã hết và một dispatcher khác claim lại event: lần chạy này bỏ kết quả, KPI đã rollback
+            logger.warn("Outbox event {} ({}) was reclaimed by another dispatcher, discarding this run",
+                    event.getEventID(), event.getType());
+        }
+    }
+
+    private void process(OutboxEvent event) {
+        try {
+            if (KPI_EVENTS.contains(event.getType())) {
+                // Bộ đếm KPI và trạng thái DONE commit cùng nhau, save kiểm tra @Version: nếu event đã bị claim lại
+                // thì save thất bại và rollback luôn phần cộng KPI, nên không cộng hai lần
+                OutboxService.KpiSlotPayload payload =
+                        objectMapper.readValue(event.getPayload(), OutboxService.KpiSlotPayload.class);
+                transactionTemplate.executeWithoutResult(status -> {
+                    applyKpi(event, payload);
+                    markDone(event);
+                    outboxEventRepository.save(event);
+                });
+                return;
+            }
+            handle(event);
+            markDone(event);
+        } catch (OptimisticLockingFailureException e) {
+            throw e;
+        } catch (Exception e) {
+            int attempts = event.getAttempts() + 1;
+            event.setAttempts(attempts);
+            event.setProcessedAt(null);
+            event.setLastError(truncate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+            if (attempts >= maxAttempts) {
+                event.setStatus(OutboxStatus.FAILED);
+                logger.error("Outbox event {} ({}) failed after {} attempts", event.getEventID(), event.getType(), attempts, e);
+            } else {
+                event.setStatus(OutboxStatus.PENDING);
+                event.setNextAttemptAt(LocalDateTime.now().plus(backoff(attempts)));
+                logger.warn("Outbox event {} ({}) failed, attempt {}: {}", event.getEventID(), event.getType(), attempts, e.getMessage());
+            }
+        }
+        outboxEventRepository.save(event);
+    }
+
+    private void handle(OutboxEvent event) throws Exception {
+        switch (event.getType()) {
+            case APPOINTMENT_EMAIL -> {
+                OutboxService.AppointmentEmailPayload payload =
+                        objectMapper.readValue(event.getPayload(), OutboxService.AppointmentEmailPayload.class);
+                // Chỉ giữ connection khi đọc dữ liệu, không giữ trong lúc chờ SMTP
+                Students student = transactionTemplate.execute(status -> {
+                    Students s = studentRepository.findById(payload.studentId())
+                            .orElseThrow(() -> new ResourceNotFoundException("Student not found: " + payload.studentId()));
+                    s.getUser().getFullName();
+                    return s;
+                });
+                TimeSlots timeSlot = timeSlotRepository.findById(payload.timeSlotId())
+                        .orElseThrow(() -> new ResourceNotFoundException("Time slot not found: " + payload.timeSlotId()));
+                emailService.sendNewAppointmentEmail(payload.email(), payload.recipientName(), student,
+                        event.getAggregateID(), timeSlot, payload.subject());
+            }
+            case APPOINTMENT_NOTIFICATION -> {
+                OutboxService.AppointmentNotificationPayload payload =
+                        objectMapper.readValue(event.getPayload(), OutboxService.AppointmentNotificationPayload.class);
+                notificationService.createAppointmentNotification(
+                        payload.userId(), payload.title(), payload.message(), event.getAggregateID());
+            }
+            default -> throw new IllegalStateException("Unhandled outbox event type " + event.getType());
+        }
+    }
+
+    private void applyKpi(OutboxEvent event, OutboxService.KpiSlotPayload payload) {
+        if (event.getType() == OutboxEventType.KPI_SLOT_BOOKED) {
+            psychologistService.increaseAchievedSlots(payload.psychologistId(), payload.slotDate());
+        } else {
+            psychologistService.decreaseAchievedSlots(payload.psychologistId(), payload.slotDate());
+        }
+    }
+
+    private void markDone(OutboxEvent event) {
+        event.setStatus(OutboxStatus.DONE);
+        event.setProcessedAt(LocalDateTime.now());
+        event.setLastError(null);
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = BASE_BACKOFF.multipliedBy(1L << Math.min(attempts - 1, 16));
+        return delay.compareTo(MAX_BACKOFF) > 0 ? MAX_BACKOFF : delay;
+    }
+
+    private String truncate(String message) {
+        return message.length() > 1000 ? message.substring(0, 1000) : message;
+    }
+}
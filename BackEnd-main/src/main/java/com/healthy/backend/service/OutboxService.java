@@ -0,0 +1,61 @@
+package com.healthy.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthy.backend.entity.OutboxEvent;
+import com.healthy.backend.enums.OutboxEventType;
+import com.healthy.backend.exception.OperationFailedException;
+import com.healthy.backend.repository.OutboxEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/**
+ * Ghi các side effect của appointment (email, notification, KPI) vào bảng OutboxEvents
+ * trong cùng transaction với thay đổi appointment. {@link OutboxDispatcher} sẽ thực thi chúng sau.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public record AppointmentEmailPayload(String email, String recipientName, String studentId,
+                                          String timeSlotId, String subject) {
+    }
+
+    public record AppointmentNotificationPayload(String userId, String title, String message) {
+    }
+
+    public record KpiSlotPayload(String psychologistId, LocalDate slotDate) {
+    }
+
+    public void appointmentEmail(String appointmentId, String email, String recipientName,
+                                 String studentId, String timeSlotId, String subject) {
+        enqueue(OutboxEventType.APPOINTMENT_EMAIL, appointmentId,
+                new AppointmentEmailPayload(email, recipientName, studentId, timeSlotId, subject));
+    }
+
+    public void appointmentNotification(String appointmentId, String userId, String title, String message) {
+        enqueue(OutboxEventType.APPOINTMENT_NOTIFICATION, appointmentId,
+                new AppointmentNotificationPayload(userId, title, message));
+    }
+
+    public void kpiSlotBooked(String appointmentId, String psychologistId, LocalDate slotDate) {
+        enqueue(OutboxEventType.KPI_SLOT_BOOKED, appointmentId, new KpiSlotPayload(psychologistId, slotDate));
+    }
+
+    public void kpiSlotReleased(String appointmentId, String psychologistId, LocalDate slotDate) {
+        enqueue(OutboxEventType.KPI_SLOT_RELEASED, appointmentId, new KpiSlotPayload(psychologistId, slotDate));
+    }
+
+    private void enqueue(OutboxEventType type, String appointmentId, Object payload) {
+        try {
+            outboxEventRepository.save(new OutboxEvent(type, appointmentId, objectMapper.writeValueAsString(payload)));
+        } catch (JsonProcessingException e) {
+            throw new OperationFailedException("Failed to serialize " + type + " event for appointment " + appointmentId);
+        }
+    }
+}
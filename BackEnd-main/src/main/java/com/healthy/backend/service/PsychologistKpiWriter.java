@@ -0,0 +1,128 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.entity.PsychologistKPI;
+import com.healthy.backend.enums.OutboxEventType;
+import com.healthy.backend.enums.OutboxStatus;
+import com.healthy.backend.repository.OutboxEventRepository;
+import com.healthy.backend.repository.PsychologistKPIRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Ghi KPI cho nhiều psychologist x nhiều tháng theo tập hợp: một query lấy các KPI đã có,
+ * insert phần còn thiếu bằng persist + flush theo batch, đổi target phần đã có bằng một câu UPDATE.
+ * Job hằng đêm đếm lại achievedSlots từ Appointments để sửa sai lệch của bộ đếm tăng dần.
+ */
+@Service
+@RequiredArgsConstructor
+public class PsychologistKpiWriter {
+
+    public static final int DEFAULT_TARGET_SLOTS = 30;
+
+    private static final Logger logger = LoggerFactory.getLogger(PsychologistKpiWriter.class);
+
+    private static final Set<OutboxEventType> KPI_EVENTS =
+            EnumSet.of(OutboxEventType.KPI_SLOT_BOOKED, OutboxEventType.KPI_SLOT_RELEASED);
+    private static final Set<OutboxStatus> UNFINISHED = EnumSet.of(OutboxStatus.PENDING, OutboxStatus.PROCESSING);
+    private static final int RECONCILE_ATTEMPTS = 5;
+    private static final long RECONCILE_RETRY_DELAY_MS = 2000;
+
+    private final PsychologistKPIRepository kpiRepository;
+    private final OutboxEventRepository outboxEventRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    public record Result(int created, int updated) {
+    }
+
+    @Scheduled(cron = "${app.kpi.reconcile-cron:0 0 2 * * *}")
+    public void reconcileAchievedSlots() {
+        int year = Year.now().getValue();
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (int attempt = 1; attempt <= RECONCILE_ATTEMPTS; attempt++) {
+            Integer updated = transactionTemplate.execute(status -> {
+                int rows = kpiRepository.reconcileAchievedSlots(year, LocalDate.of(year, 1, 1), LocalDate.of(year + 1, 1, 1));
+                // Event KPI chưa xử lý sẽ còn cộng/trừ tiếp lên con số vừa đếm lại: bỏ lần này, thử lại sau
+                if (outboxEventRepository.existsByTypeInAndStatusIn(KPI_EVENTS, UNFINISHED)) {
+                    status.setRollbackOnly();
+                    return null;
+                }
+                return rows;
+            });
+            if (updated != null) {
+                logger.info("Reconciled achieved slots of {} KPI rows for {}", updated, year);
+                return;
+            }
+            try {
+                Thread.sleep(RECONCILE_RETRY_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        logger.warn("Skipped KPI reconciliation for {}: KPI outbox events kept pending", year);
+    }
+
+    // Tạo KPI còn thiếu với targetSlots; KPI đã có giữ nguyên
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Result createMissing(Collection<String> psychologistIds, int year, Collection<Integer> months, int targetSlots) {
+        return write(psychologistIds, year, months, targetSlots, false);
+    }
+
+    // Tạo KPI còn thiếu và đặt targetSlots cho cả KPI đã có
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Result setTargets(Collection<String> psychologistIds, int year, Collection<Integer> months, int targetSlots) {
+        return write(psychologistIds, year, months, targetSlots, true);
+    }
+
+    private Result write(Collection<String> psychologistIds, int year, Collection<Integer> months,
+                         int targetSlots, boolean overwrite) {
+        if (psychologistIds.isEmpty() || months.isEmpty()) {
+            return new Result(0, 0);
+        }
+        Set<String> existing = new HashSet<>(kpiRepository.findIds(psychologistIds, year, months));
+
+        int created = 0;
+        for (String psychologistId : psychologistIds) {
+            for (int month : months) {
+                String id = psychologistId + "-" + month + "-" + year;
+                if (existing.contains(id)) {
+                    continue;
+                }
+                // persist thay vì save: ID tự gán nên save() sẽ merge và SELECT từng dòng trước khi insert
+                entityManager.persist(new PsychologistKPI(id, psychologistId, month, year, targetSlots, 0));
+                if (++created % batchSize == 0) {
+                    entityManager.flush();
+                }
+            }
+        }
+        entityManager.flush();
+
+        int updated = overwrite && !existing.isEmpty()
+                ? kpiRepository.updateTargets(psychologistIds, year, months, targetSlots)
+                : 0;
+        return new Result(created, updated);
+    }
+}
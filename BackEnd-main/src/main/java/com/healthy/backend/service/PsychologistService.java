@@ -3,12 +3,13 @@ package com.healthy.backend.service;
 
 import com.healthy.backend.dto.psychologist.PsychologistRequest;
 import com.healthy.backend.dto.psychologist.PsychologistResponse;
+import com.healthy.backend.dto.timeslot.AvailableSlotResponse;
 import com.healthy.backend.dto.timeslot.DefaultTimeSlotResponse;
 import com.healthy.backend.dto.timeslot.TimeSlotResponse;
 import com.healthy.backend.entity.*;
 import com.healthy.backend.enums.PsychologistStatus;
-import com.healthy.backend.enums.TimeslotStatus;
 import com.healthy.backend.exception.AuthorizeException;
+import com.healthy.backend.exception.ResourceInvalidException;
 import com.healthy.backend.exception.ResourceNotFoundException;
 import com.healthy.backend.mapper.PsychologistsMapper;
 import com.healthy.backend.mapper.TimeSlotMapper;
@@ -21,8 +22,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import java.util.stream.Collectors;
 
 @Service
@@ -42,29 +42,30 @@ public class PsychologistService {
     private final DefaultTimeSlotRepository defaultTimeSlotRepository;
 
     private final PsychologistKPIRepository kpiRepository;
+    private final PsychologistKpiWriter kpiWriter;
+
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
+    private final TimeSlotMaterializer timeSlotMaterializer;
+
+    private static final int DEFAULT_SEARCH_DAYS = 14;
+    private static final int MAX_SEARCH_DAYS = 60;
+    private static final int MAX_NEXT_SLOTS = 50;
 
 
     @Transactional
     public void increaseAchievedSlots(String psychologistId, LocalDate slotDate) {
         int month = slotDate.getMonthValue();
         int year = slotDate.getYear();
-        PsychologistKPI kpi = kpiRepository.findByPsychologistIdAndMonthAndYear(psychologistId, month, year);
-        if (kpi == null) {
-            throw new ResourceNotFoundException("KPI not set for psychologist " + psychologistId);
+        if (kpiRepository.incrementAchievedSlots(psychologistId, month, year) == 0) {
+            // Chưa có KPI cho tháng của slot (vd. slot năm sau): tạo với target mặc định rồi cộng
+            kpiWriter.createMissing(List.of(psychologistId), year, List.of(month), PsychologistKpiWriter.DEFAULT_TARGET_SLOTS);
+            kpiRepository.incrementAchievedSlots(psychologistId, month, year);
         }
-        kpi.setAchievedSlots(kpi.getAchievedSlots() + 1);
-        kpiRepository.save(kpi);
     }
 
     @Transactional
     public void decreaseAchievedSlots(String psychologistId, LocalDate slotDate) {
-        int month = slotDate.getMonthValue();
-        int year = slotDate.getYear();
-        PsychologistKPI kpi = kpiRepository.findByPsychologistIdAndMonthAndYear(psychologistId, month, year);
-        if (kpi != null) {
-            kpi.setAchievedSlots(Math.max(kpi.getAchievedSlots() - 1, 0));
-            kpiRepository.save(kpi);
-        }
+        kpiRepository.decrementAchievedSlots(psychologistId, slotDate.getMonthValue(), slotDate.getYear());
     }
 
 
@@ -227,76 +228,146 @@ public class PsychologistService {
             throw new ResourceNotFoundException("Some default slots not found");
         }
 
-        List<TimeSlots> newSlots = new ArrayList<>();
-
-        for (DefaultTimeSlot defaultSlot : defaultSlots) {
-            // Check existing slots
-            boolean exists = timeSlotRepository.existsByPsychologistAndSlotDateAndStartTimeAndEndTime(
-                    psychologist,
-                    slotDate,
-                    defaultSlot.getStartTime(),
-                    defaultSlot.getEndTime()
-            );
-
-            if (!exists) {
-                TimeSlots slot = new TimeSlots();
-                slot.setSlotDate(slotDate);
-                slot.setStartTime(defaultSlot.getStartTime());
-                slot.setEndTime(defaultSlot.getEndTime());
-                slot.setPsychologist(psychologist);
-                slot.setMaxCapacity(3); // Default capacity
-                slot.setStatus(TimeslotStatus.AVAILABLE);
-                slot.setTimeSlotsID(generateSlotId(psychologistId, slotDate, defaultSlot.getSlotId()));
-
-                newSlots.add(slot);
-            }
-        }
-
-        timeSlotRepository.saveAll(newSlots);
+        List<TimeSlots> newSlots = timeSlotMaterializer.materialize(
+                psychologist, new TreeMap<>(Map.of(slotDate, defaultSlots)));
 
         return newSlots.stream()
                 .map(timeSlotMapper::toResponse)
                 .toList();
     }
 
-    private String generateSlotId(String psychologistId, LocalDate date, String defaultSlotId) {
-        return "TS-" + psychologistId + "-" + date.toString() + "-" + defaultSlotId;
-    }
-
 
     public List<TimeSlotResponse> getPsychologistTimeSlots(
             String psychologistId,
             LocalDate date,
             String studentId) {
 
-        List<TimeSlots> slots;
+        List<SlotAvailabilityIndex.Slot> slots;
 
         // Scenario 1: Both psychologistId and date are provided
         if (psychologistId != null && date != null) {
-            slots = timeSlotRepository.findByPsychologistIdAndDate(psychologistId, date);
+            slots = slotAvailabilityIndex.findByPsychologistAndDate(psychologistId, date);
         }
         // Scenario 2: Only psychologistId is provided
         else if (psychologistId != null) {
-            slots = timeSlotRepository.findByPsychologistId(psychologistId);
+            slots = slotAvailabilityIndex.findByPsychologist(psychologistId);
         }
         // Scenario 3: Neither psychologistId nor date is provided - get all time slots
         else {
-            slots = timeSlotRepository.findAll();
+            slots = slotAvailabilityIndex.findAll();
         }
 
-        // Map time slots and check booking status
+        // Các slot student đã đặt, lấy một lần thay vì một query mỗi slot
+        Set<String> bookedSlotIds = studentId == null ? Set.of()
+                : new HashSet<>(appointmentRepository.findActiveTimeSlotIdsByStudentID(studentId));
+
         return slots.stream()
-                .map(slot -> {
-                    TimeSlotResponse response = timeSlotMapper.toResponse(slot);
+                .map(slot -> new TimeSlotResponse(
+                        slot.timeSlotId(),
+                        slot.slotDate(),
+                        slot.startTime(),
+                        slot.endTime(),
+                        slot.status(),
+                        slot.maxCapacity(),
+                        slot.currentBookings(),
+                        bookedSlotIds.contains(slot.timeSlotId())))
+                .collect(Collectors.toList());
+    }
 
-                    // Check if student has booked this slot
-                    boolean isBooked = studentId != null &&
-                            appointmentRepository.existsByStudentIDAndTimeSlotsID(studentId, slot.getTimeSlotsID());
-                    response.setBooked(isBooked);
+    /*
+     * Earliest free slots across a department. Each psychologist's slots come out of the
+     * availability index already sorted, so a k-way merge over one cursor per psychologist
+     * yields the global order without sorting everything in the window.
+     */
+    public List<AvailableSlotResponse> findNextAvailableSlots(
+            String departmentId,
+            LocalDate fromDate,
+            LocalDate toDate,
+            LocalTime fromTime,
+            LocalTime toTime,
+            int limit,
+            String studentId) {
 
-                    return response;
-                })
-                .collect(Collectors.toList());
+        if (!departmentRepository.existsById(departmentId)) {
+            throw new ResourceNotFoundException("Department not found");
+        }
+        LocalDate today = LocalDate.now();
+        LocalDate from = fromDate == null || fromDate.isBefore(today) ? today : fromDate;
+        LocalDate to = toDate == null ? from.plusDays(DEFAULT_SEARCH_DAYS) : toDate;
+        if (to.isBefore(from) || from.plusDays(MAX_SEARCH_DAYS).isBefore(to)) {
+            throw new ResourceInvalidException("Date window must be between 0 and " + MAX_SEARCH_DAYS + " days");
+        }
+        if (limit < 1 || limit > MAX_NEXT_SLOTS) {
+            throw new ResourceInvalidException("Limit must be between 1 and " + MAX_NEXT_SLOTS);
+        }
+
+        Map<String, String> names = new HashMap<>();
+        PriorityQueue<SlotCursor> heads = new PriorityQueue<>(
+                Comparator.comparing((SlotCursor c) -> c.head.slotDate())
+                        .thenComparing(c -> c.head.startTime())
+                        .thenComparing(c -> c.head.psychologistId()));
+        for (Psychologists psychologist : psychologistRepository.findActiveByDepartmentIdWithUser(departmentId)) {
+            names.put(psychologist.getPsychologistID(), psychologist.getFullNameFromUser());
+            SlotCursor cursor = new SlotCursor(slotAvailabilityIndex
+                    .findDays(psychologist.getPsychologistID(), from, to).values().iterator());
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+
+        Set<String> bookedSlotIds = studentId == null ? Set.of()
+                : new HashSet<>(appointmentRepository.findActiveTimeSlotIdsByStudentID(studentId));
+        LocalTime now = LocalTime.now();
+
+        List<AvailableSlotResponse> result = new ArrayList<>(limit);
+        while (!heads.isEmpty() && result.size() < limit) {
+            SlotCursor cursor = heads.poll();
+            SlotAvailabilityIndex.Slot slot = cursor.head;
+            boolean eligible = slot.hasFreeSeat()
+                    && !bookedSlotIds.contains(slot.timeSlotId())
+                    && !(slot.slotDate().equals(today) && slot.startTime().isBefore(now))
+                    && (fromTime == null || !slot.startTime().isBefore(fromTime))
+                    && (toTime == null || !slot.endTime().isAfter(toTime));
+            if (eligible) {
+                result.add(AvailableSlotResponse.builder()
+                        .timeSlotId(slot.timeSlotId())
+                        .slotDate(slot.slotDate())
+                        .startTime(slot.startTime())
+                        .endTime(slot.endTime())
+                        .maxCapacity(slot.maxCapacity())
+                        .currentBookings(slot.currentBookings())
+                        .psychologistId(slot.psychologistId())
+                        .psychologistName(names.get(slot.psychologistId()))
+                        .build());
+            }
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        return result;
     }
 
+    // Walks one psychologist's days in order, then the slots of each day in order
+    private static final class SlotCursor {
+        private final Iterator<SlotAvailabilityIndex.Slot[]> days;
+        private SlotAvailabilityIndex.Slot[] day = new SlotAvailabilityIndex.Slot[0];
+        private int next;
+        private SlotAvailabilityIndex.Slot head;
+
+        SlotCursor(Iterator<SlotAvailabilityIndex.Slot[]> days) {
+            this.days = days;
+        }
+
+        boolean advance() {
+            while (next >= day.length) {
+                if (!days.hasNext()) {
+                    return false;
+                }
+                day = days.next();
+                next = 0;
+            }
+            head = day[next++];
+            return true;
+        }
+    }
 }
@@ -0,0 +1,151 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.exception.OperationFailedException;
+import com.healthy.backend.exception.ResourceInvalidException;
+import com.healthy.backend.repository.AppointmentRepository;
+import com.healthy.backend.repository.PsychologistKPIRepository;
+import com.healthy.backend.repository.SurveyResultRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Xuất CSV cho manager, ghi thẳng từng dòng từ cursor JDBC ra response nên heap không phụ thuộc số dòng.
+ * Dòng được sắp theo ID; tải tiếp sau khi đứt kết nối bằng {@code after} = ID cuối cùng đã nhận
+ * (khi đó không ghi lại dòng header, nối thẳng vào file cũ được).
+ * Mỗi lần xuất giữ một connection DB suốt lúc client tải về (cursor chỉ đọc tiếp khi response ghi được),
+ * nên số lần xuất chạy cùng lúc bị giới hạn bởi {@code app.export.max-concurrent} để client chậm
+ * không chiếm hết pool; vượt giới hạn thì request bị từ chối ngay, không xếp hàng.
+ */
+@Service
+@RequiredArgsConstructor
+public class ReportExportService {
+
+    private static final String[] APPOINTMENT_HEADER = {"AppointmentID", "StudentID", "StudentName",
+            "PsychologistID", "PsychologistName", "Status", "CreatedAt", "SlotDate", "StartTime", "EndTime",
+            "CheckInTime", "CheckOutTime", "Rating"};
+    private static final String[] SURVEY_RESULT_HEADER = {"ResultID", "SurveyID", "SurveyName", "Category",
+            "StudentID", "Result", "MaxScore", "CreatedAt"};
+    private static final String[] KPI_HEADER = {"KpiID", "PsychologistID", "Month", "Year", "TargetSlots",
+            "AchievedSlots"};
+
+    private final AppointmentRepository appointmentRepository;
+    private final SurveyResultRepository surveyResultRepository;
+    private final PsychologistKPIRepository kpiRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    private Semaphore permits;
+    private TransactionTemplate readOnly;
+
+    @PostConstruct
+    void init() {
+        permits = new Semaphore(maxConcurrent);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    public void exportAppointments(LocalDate startDate, LocalDate endDate, String after, Writer out) throws IOException {
+        validateRange(startDate, endDate);
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+        export(out, APPOINTMENT_HEADER, after, () -> after == null
+                ? appointmentRepository.streamForExport(start, end)
+                : appointmentRepository.streamForExportAfter(start, end, after));
+    }
+
+    public void exportSurveyResults(LocalDate startDate, LocalDate endDate, String after, Writer out) throws IOException {
+        validateRange(startDate, endDate);
+        LocalDateTime start = startDate.atStartOfDay();
+        LocalDateTime end = endDate.plusDays(1).atStartOfDay();
+        export(out, SURVEY_RESULT_HEADER, after, () -> after == null
+                ? surveyResultRepository.streamForExport(start, end)
+                : surveyResultRepository.streamForExportAfter(start, end, after));
+    }
+
+    // KPI theo tháng: lấy các tháng giao với khoảng ngày
+    public void exportKpis(LocalDate startDate, LocalDate endDate, String after, Writer out) throws IOException {
+        validateRange(startDate, endDate);
+        int fromYear = startDate.getYear();
+        int fromMonth = startDate.getMonthValue();
+        int toYear = endDate.getYear();
+        int toMonth = endDate.getMonthValue();
+        export(out, KPI_HEADER, after, () -> after == null
+                ? kpiRepository.streamForExport(fromYear, fromMonth, toYear, toMonth)
+                : kpiRepository.streamForExportAfter(fromYear, fromMonth, toYear, toMonth, after));
+    }
+
+    // Lấy permit trước khi mở transaction để request bị từ chối không chiếm connection nào
+    private void export(Writer out, String[] header, String after, Supplier<Stream<Object[]>> query) throws IOException {
+        if (!permits.tryAcquire()) {
+            throw new OperationFailedException("Too many exports are running, try again later");
+        }
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = query.get()) {
+                    write(out, after == null ? header : null, rows);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private void validateRange(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null || endDate.isBefore(startDate)) {
+            throw new ResourceInvalidException("startDate and endDate are required and endDate must not be before startDate");
+        }
+    }
+
+    private void write(Writer out, String[] header, Stream<Object[]> rows) throws IOException {
+        if (header != null) {
+            writeLine(out, header);
+        }
+        Iterator<Object[]> iterator = rows.iterator();
+        while (iterator.hasNext()) {
+            writeLine(out, iterator.next());
+        }
+        out.flush();
+    }
+
+    private void writeLine(Writer out, Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.write(escape(values[i]));
+        }
+        out.write("\r\n");
+    }
+
+    // RFC 4180: bọc trong dấu nháy khi có dấu phẩy, nháy hoặc xuống dòng
+    private static String escape(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,161 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.dto.timeslot.WeeklyScheduleRequest;
+import com.healthy.backend.dto.timeslot.WeeklyScheduleResponse;
+import com.healthy.backend.entity.*;
+import com.healthy.backend.exception.ResourceNotFoundException;
+import com.healthy.backend.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Lịch làm việc lặp lại theo tuần của psychologist. Slot được sinh sẵn cho {@code horizonWeeks} tuần tới;
+ * job hằng đêm chỉ sinh phần ngày mới lọt vào horizon.
+ */
+@Service
+@RequiredArgsConstructor
+public class ScheduleTemplateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ScheduleTemplateService.class);
+
+    private final WeeklyScheduleRepository weeklyScheduleRepository;
+    private final WeeklyScheduleSlotRepository weeklyScheduleSlotRepository;
+    private final ScheduleExceptionRepository scheduleExceptionRepository;
+    private final DefaultTimeSlotRepository defaultTimeSlotRepository;
+    private final PsychologistRepository psychologistRepository;
+    private final TimeSlotMaterializer timeSlotMaterializer;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.schedule.horizon-weeks:8}")
+    private int horizonWeeks;
+
+    public WeeklyScheduleResponse getTemplate(String psychologistId) {
+        WeeklySchedule schedule = weeklyScheduleRepository.findById(psychologistId)
+                .orElseThrow(() -> new ResourceNotFoundException("No weekly schedule for psychologist " + psychologistId));
+        return buildResponse(schedule);
+    }
+
+    @Transactional
+    public WeeklyScheduleResponse saveTemplate(String psychologistId, WeeklyScheduleRequest request) {
+        if (!psychologistRepository.existsById(psychologistId)) {
+            throw new ResourceNotFoundException("Psychologist not found");
+        }
+
+        Set<String> requestedSlotIds = request.getDays().values().stream()
+                .flatMap(List::stream)
+                .collect(Collectors.toSet());
+        if (defaultTimeSlotRepository.findAllById(requestedSlotIds).size() != requestedSlotIds.size()) {
+            throw new ResourceNotFoundException("Some default slots not found");
+        }
+
+        weeklyScheduleSlotRepository.deleteByPsychologistID(psychologistId);
+        List<WeeklyScheduleSlot> entries = new ArrayList<>();
+        request.getDays().forEach((day, slotIds) -> slotIds.stream().distinct()
+                .forEach(slotId -> entries.add(new WeeklyScheduleSlot(psychologistId, day, slotId))));
+        weeklyScheduleSlotRepository.saveAll(entries);
+
+        // Ngoại lệ trong quá khứ giữ nguyên, từ hôm nay trở đi thay bằng danh sách mới
+        LocalDate today = LocalDate.now();
+        scheduleExceptionRepository.deleteUpcoming(psychologistId, today);
+        if (request.getExceptionDates() != null) {
+            scheduleExceptionRepository.saveAll(request.getExceptionDates().stream()
+                    .filter(date -> !date.isBefore(today))
+                    .distinct()
+                    .map(date -> new ScheduleException(psychologistId, date))
+                    .toList());
+        }
+
+        // Template đổi thì sinh lại cả horizon; slot đã có sẽ được bỏ qua
+        WeeklySchedule schedule = weeklyScheduleRepository.findById(psychologistId)
+                .orElseGet(() -> new WeeklySchedule(psychologistId));
+        schedule.setMaterializedUntil(null);
+        materialize(schedule);
+        return buildResponse(schedule);
+    }
+
+    @Scheduled(cron = "${app.schedule.materialize-cron:0 30 1 * * *}")
+    public void materializeAll() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (String psychologistId : weeklyScheduleRepository.findAllPsychologistIds()) {
+            try {
+                transactionTemplate.executeWithoutResult(status ->
+                        weeklyScheduleRepository.findById(psychologistId).ifPresent(this::materialize));
+            } catch (Exception e) {
+                logger.error("Failed to materialize weekly schedule of {}", psychologistId, e);
+            }
+        }
+    }
+
+    private void materialize(WeeklySchedule schedule) {
+        String psychologistId = schedule.getPsychologistID();
+        LocalDate today = LocalDate.now();
+        LocalDate from = schedule.getMaterializedUntil() == null || schedule.getMaterializedUntil().isBefore(today)
+                ? today : schedule.getMaterializedUntil().plusDays(1);
+        LocalDate to = today.plusWeeks(horizonWeeks).minusDays(1);
+        if (from.isAfter(to)) {
+            return;
+        }
+
+        Map<String, DefaultTimeSlot> defaults = defaultTimeSlotRepository.findAll().stream()
+                .collect(Collectors.toMap(DefaultTimeSlot::getSlotId, Function.identity()));
+        Map<DayOfWeek, List<DefaultTimeSlot>> byDay = new EnumMap<>(DayOfWeek.class);
+        for (WeeklyScheduleSlot entry : weeklyScheduleSlotRepository.findByPsychologistID(psychologistId)) {
+            DefaultTimeSlot defaultSlot = defaults.get(entry.getDefaultSlotID());
+            if (defaultSlot != null) {
+                byDay.computeIfAbsent(entry.getDayOfWeek(), d -> new ArrayList<>()).add(defaultSlot);
+            }
+        }
+        Set<LocalDate> skipped = scheduleExceptionRepository
+                .findByPsychologistIDAndExceptionDateBetween(psychologistId, from, to).stream()
+                .map(ScheduleException::getExceptionDate)
+                .collect(Collectors.toSet());
+
+        SortedMap<LocalDate, List<DefaultTimeSlot>> plan = new TreeMap<>();
+        for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+            List<DefaultTimeSlot> slots = byDay.get(date.getDayOfWeek());
+            if (slots != null && !skipped.contains(date)) {
+                plan.put(date, slots);
+            }
+        }
+
+        if (!plan.isEmpty()) {
+            Psychologists psychologist = psychologistRepository.findById(psychologistId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Psychologist not found"));
+            int created = timeSlotMaterializer.materialize(psychologist, plan).size();
+            logger.info("Materialized {} time slots for {} from {} to {}", created, psychologistId, from, to);
+        }
+        schedule.setMaterializedUntil(to);
+        weeklyScheduleRepository.save(schedule);
+    }
+
+    private WeeklyScheduleResponse buildResponse(WeeklySchedule schedule) {
+        String psychologistId = schedule.getPsychologistID();
+        Map<DayOfWeek, List<String>> days = new EnumMap<>(DayOfWeek.class);
+        for (WeeklyScheduleSlot entry : weeklyScheduleSlotRepository.findByPsychologistID(psychologistId)) {
+            days.computeIfAbsent(entry.getDayOfWeek(), d -> new ArrayList<>()).add(entry.getDefaultSlotID());
+        }
+        return WeeklyScheduleResponse.builder()
+                .psychologistId(psychologistId)
+                .days(days)
+                .exceptionDates(scheduleExceptionRepository
+                        .findByPsychologistIDAndExceptionDateGreaterThanEqualOrderByExceptionDate(psychologistId, LocalDate.now())
+                        .stream()
+                        .map(ScheduleException::getExceptionDate)
+                        .toList())
+                .materializedUntil(schedule.getMaterializedUntil())
+                .build();
+    }
+}
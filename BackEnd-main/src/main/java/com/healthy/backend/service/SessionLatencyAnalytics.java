@@ -0,0 +1,184 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.dto.manager.SessionLatencyResponse;
+import com.healthy.backend.entity.Appointments;
+import com.healthy.backend.exception.ResourceInvalidException;
+import com.healthy.backend.repository.AppointmentRepository;
+import com.healthy.backend.stats.LatencyHistogram;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Histogram thời lượng buổi tư vấn (checkOut - checkIn) và thời gian đặt trước (giờ bắt đầu slot - createdAt)
+ * theo psychologist, department và toàn hệ thống. Nạp một lần từ các appointment đã hoàn thành khi khởi động
+ * (đọc dạng stream, không giữ cả bảng trong heap), sau đó cập nhật ở mỗi lần check-out; đọc hoàn toàn từ bộ nhớ.
+ * Check-out commit trong lúc đang nạp được giữ lại và chỉ ghi nếu snapshot của lần nạp chưa thấy nó.
+ */
+@Component
+@RequiredArgsConstructor
+public class SessionLatencyAnalytics {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionLatencyAnalytics.class);
+
+    private final AppointmentRepository appointmentRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private record Histograms(LatencyHistogram sessionDuration, LatencyHistogram leadTime) {
+
+        Histograms() {
+            this(new LatencyHistogram(), new LatencyHistogram());
+        }
+    }
+
+    private record Session(String appointmentId, String psychologistId, String departmentId, LocalDateTime createdAt,
+                           LocalDateTime checkIn, LocalDateTime checkOut, LocalDate slotDate, LocalTime startTime) {
+    }
+
+    private static final class State {
+        final Histograms overall = new Histograms();
+        final Map<String, Histograms> byPsychologist = new ConcurrentHashMap<>();
+        final Map<String, Histograms> byDepartment = new ConcurrentHashMap<>();
+    }
+
+    private volatile State state = new State();
+    // Check-out commit trong lúc load đang chạy; null khi không load. Đọc/ghi khi giữ lock this
+    private List<Session> pendingDuringLoad;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        TransactionTemplate snapshot = new TransactionTemplate(transactionManager);
+        snapshot.setReadOnly(true);
+        // REPEATABLE READ: câu kiểm tra ID ở cuối thấy đúng snapshot mà lần stream đã đọc
+        snapshot.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        long loaded = snapshot.execute(status -> {
+            synchronized (this) {
+                pendingDuringLoad = new ArrayList<>();
+            }
+            State fresh = new State();
+            long[] count = {0};
+            try (Stream<Object[]> rows = appointmentRepository.streamCompletedSessionTimes()) {
+                rows.forEach(row -> {
+                    record(fresh, toSession(row));
+                    count[0]++;
+                });
+            }
+
+            // Check-out đã nằm trong snapshot thì lần stream đã đếm rồi, chỉ ghi những cái commit sau snapshot
+            while (true) {
+                List<Session> pending;
+                synchronized (this) {
+                    pending = pendingDuringLoad;
+                    if (pending.isEmpty()) {
+                        state = fresh;
+                        pendingDuringLoad = null;
+                        break;
+                    }
+                    pendingDuringLoad = new ArrayList<>();
+                }
+                Set<String> inSnapshot = new HashSet<>(appointmentRepository.findCompletedIdsIn(
+                        pending.stream().map(Session::appointmentId).toList()));
+                pending.stream()
+                        .filter(session -> !inSnapshot.contains(session.appointmentId()))
+                        .forEach(session -> record(fresh, session));
+            }
+            return count[0];
+        });
+        logger.info("Session latency histograms loaded from {} completed appointments", loaded);
+    }
+
+    // Gọi trong transaction check-out; ghi nhận sau khi commit. Cần timeSlot và psychologist đã được load
+    public void sessionCompleted(Appointments appointment) {
+        Session session = new Session(
+                appointment.getAppointmentID(),
+                appointment.getPsychologistID(),
+                appointment.getPsychologist() != null ? appointment.getPsychologist().getDepartmentID() : null,
+                appointment.getCreatedAt(),
+                appointment.getCheckInTime(),
+                appointment.getCheckOutTime(),
+                appointment.getTimeSlot() != null ? appointment.getTimeSlot().getSlotDate() : null,
+                appointment.getTimeSlot() != null ? appointment.getTimeSlot().getStartTime() : null);
+
+        TransactionHooks.afterCommit(() -> {
+            // Ghi trong lock: không thể lọt vào state cũ ngay sau khi load đã thay state
+            synchronized (this) {
+                if (pendingDuringLoad != null) {
+                    pendingDuringLoad.add(session);
+                } else {
+                    record(state, session);
+                }
+            }
+        });
+    }
+
+    public SessionLatencyResponse getStats(String psychologistId, String departmentId) {
+        if (psychologistId != null && departmentId != null) {
+            throw new ResourceInvalidException("Filter by either psychologistId or departmentId, not both");
+        }
+        String scope;
+        Histograms histograms;
+        State current = state;
+        if (psychologistId != null) {
+            scope = "PSYCHOLOGIST:" + psychologistId;
+            histograms = current.byPsychologist.getOrDefault(psychologistId, new Histograms());
+        } else if (departmentId != null) {
+            scope = "DEPARTMENT:" + departmentId;
+            histograms = current.byDepartment.getOrDefault(departmentId, new Histograms());
+        } else {
+            scope = "ALL";
+            histograms = current.overall;
+        }
+        return new SessionLatencyResponse(scope,
+                histograms.sessionDuration().summarize(),
+                histograms.leadTime().summarize());
+    }
+
+    private static void record(State state, Session session) {
+        Long sessionMinutes = session.checkIn() != null && session.checkOut() != null
+                ? Duration.between(session.checkIn(), session.checkOut()).toMinutes() : null;
+        Long leadMinutes = session.createdAt() != null && session.slotDate() != null && session.startTime() != null
+                ? Duration.between(session.createdAt(), session.slotDate().atTime(session.startTime())).toMinutes() : null;
+
+        record(state.overall, sessionMinutes, leadMinutes);
+        if (session.psychologistId() != null) {
+            record(state.byPsychologist.computeIfAbsent(session.psychologistId(), id -> new Histograms()),
+                    sessionMinutes, leadMinutes);
+        }
+        if (session.departmentId() != null) {
+            record(state.byDepartment.computeIfAbsent(session.departmentId(), id -> new Histograms()),
+                    sessionMinutes, leadMinutes);
+        }
+    }
+
+    private static Session toSession(Object[] row) {
+        return new Session((String) row[0], (String) row[1], (String) row[2], (LocalDateTime) row[3],
+                (LocalDateTime) row[4], (LocalDateTime) row[5], (LocalDate) row[6], (LocalTime) row[7]);
+    }
+
+    private static void record(Histograms histograms, Long sessionMinutes, Long leadMinutes) {
+        if (sessionMinutes != null) {
+            histograms.sessionDuration().record(sessionMinutes);
+        }
+        if (leadMinutes != null) {
+            histograms.leadTime().record(leadMinutes);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.entity.TimeSlots;
+import com.healthy.backend.enums.TimeslotStatus;
+import com.healthy.backend.repository.TimeSlotRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Bản sao trong bộ nhớ của tình trạng TimeSlots: psychologist -> ngày -> mảng slot sắp theo giờ bắt đầu.
+ * Đặt/hủy/tạo slot cập nhật sau khi transaction commit; toàn bộ index được dựng lại định kỳ
+ * để bắt kịp thay đổi từ node khác hoặc sửa tay trong DB. Slot bị đặt/hủy/tạo trong lúc rebuild đang quét
+ * được đọc lại từ DB trước khi thay index, để lần quét không ghi đè hay bỏ sót thay đổi đó.
+ */
+@Component
+@RequiredArgsConstructor
+public class SlotAvailabilityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(SlotAvailabilityIndex.class);
+
+    private static final Comparator<Slot> BY_START = Comparator.comparing(Slot::startTime).thenComparing(Slot::timeSlotId);
+
+    private final TimeSlotRepository timeSlotRepository;
+
+    public record Slot(String timeSlotId, String psychologistId, LocalDate slotDate,
+                       LocalTime startTime, LocalTime endTime,
+                       int maxCapacity, int currentBookings, TimeslotStatus status) {
+
+        public boolean hasFreeSeat() {
+            return status != TimeslotStatus.UNAVAILABLE && currentBookings < maxCapacity;
+        }
+    }
+
+    private record Location(String psychologistId, LocalDate slotDate) {
+    }
+
+    private static final class State {
+        // Mỗi mảng Slot[] là bất biến, cập nhật bằng cách thay cả mảng
+        final Map<String, NavigableMap<LocalDate, Slot[]>> byPsychologist = new ConcurrentHashMap<>();
+        final Map<String, Location> locations = new ConcurrentHashMap<>();
+    }
+
+    private volatile State state;
+
+    // Chỉ một lần rebuild chạy tại một thời điểm
+    private final Object rebuildMutex = new Object();
+    // ID các slot thay đổi trong lúc đang rebuild; null khi không rebuild. Đọc/ghi khi giữ lock this
+    private Set<String> changedDuringRebuild;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.slot-index.rebuild-interval-ms:600000}",
+            initialDelayString = "${app.slot-index.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        synchronized (rebuildMutex) {
+            synchronized (this) {
+                changedDuringRebuild = new HashSet<>();
+            }
+            State fresh = new State();
+            List<Object[]> rows = timeSlotRepository.findAllAvailabilityRows();
+            rows.forEach(row -> put(fresh, toSlot(row)));
+
+            // Slot thay đổi trong lúc quét được đọc lại từ DB (giá trị tuyệt đối, không cộng lại delta
+            // vì lần quét có thể đã thấy thay đổi đó); lặp tới khi không còn thay đổi mới rồi mới thay state
+            while (true) {
+                Set<String> changed;
+                synchronized (this) {
+                    changed = changedDuringRebuild;
+                    if (changed.isEmpty()) {
+                        state = fresh;
+                        changedDuringRebuild = null;
+                        break;
+                    }
+                    changedDuringRebuild = new HashSet<>();
+                }
+                timeSlotRepository.findAvailabilityRowsByIds(changed).forEach(row -> put(fresh, toSlot(row)));
+            }
+            logger.info("Slot availability index rebuilt with {} slots", rows.size());
+        }
+    }
+
+    public List<Slot> findByPsychologistAndDate(String psychologistId, LocalDate date) {
+        NavigableMap<LocalDate, Slot[]> days = current().byPsychologist.get(psychologistId);
+        Slot[] slots = days == null ? null : days.get(date);
+        return slots == null ? List.of() : List.of(slots);
+    }
+
+    public List<Slot> findByPsychologist(String psychologistId) {
+        NavigableMap<LocalDate, Slot[]> days = current().byPsychologist.get(psychologistId);
+        return days == null ? List.of() : flatten(days.values());
+    }
+
+    public List<Slot> findAll() {
+        List<Slot> result = new ArrayList<>();
+        for (NavigableMap<LocalDate, Slot[]> days : current().byPsychologist.values()) {
+            result.addAll(flatten(days.values()));
+        }
+        return result;
+    }
+
+    // Các ngày của một psychologist trong [from, to], đã sắp theo ngày rồi theo giờ
+    public NavigableMap<LocalDate, Slot[]> findDays(String psychologistId, LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, Slot[]> days = current().byPsychologist.get(psychologistId);
+        return days == null ? Collections.emptyNavigableMap() : days.subMap(from, true, to, true);
+    }
+
+    /* Gọi ngay sau các câu UPDATE reserveSeat/releaseSeat thành công, trong cùng transaction */
+
+    public void slotBooked(String timeSlotId) {
+        TransactionHooks.afterCommit(() -> apply(List.of(timeSlotId), current -> update(current, timeSlotId, slot -> {
+            int bookings = slot.currentBookings() + 1;
+            TimeslotStatus status = bookings >= slot.maxCapacity() ? TimeslotStatus.BOOKED : slot.status();
+            return withBookings(slot, bookings, status);
+        })));
+    }
+
+    public void slotReleased(String timeSlotId) {
+        TransactionHooks.afterCommit(() -> apply(List.of(timeSlotId), current -> update(current, timeSlotId, slot ->
+                withBookings(slot, Math.max(slot.currentBookings() - 1, 0), TimeslotStatus.AVAILABLE))));
+    }
+
+    public void slotsCreated(List<TimeSlots> timeSlots) {
+        List<Slot> slots = timeSlots.stream()
+                .map(ts -> new Slot(ts.getTimeSlotsID(), ts.getPsychologist().getPsychologistID(), ts.getSlotDate(),
+                        ts.getStartTime(), ts.getEndTime(), ts.getMaxCapacity(), ts.getCurrentBookings(), ts.getStatus()))
+                .toList();
+        TransactionHooks.afterCommit(() -> apply(slots.stream().map(Slot::timeSlotId).toList(),
+                current -> slots.forEach(slot -> put(current, slot))));
+    }
+
+    // Áp thay đổi vào state đang dùng; nếu đang rebuild thì ghi lại ID để rebuild đọc lại các slot này
+    private void apply(Collection<String> timeSlotIds, Consumer<State> change) {
+        current();
+        synchronized (this) {
+            if (changedDuringRebuild != null) {
+                changedDuringRebuild.addAll(timeSlotIds);
+            }
+            change.accept(state);
+        }
+    }
+
+    private State current() {
+        State current = state;
+        if (current == null) {
+            synchronized (rebuildMutex) {
+                if (state == null) {
+                    rebuild();
+                }
+            }
+            current = state;
+        }
+        return current;
+    }
+
+    private static void put(State state, Slot slot) {
+        state.locations.put(slot.timeSlotId(), new Location(slot.psychologistId(), slot.slotDate()));
+        state.byPsychologist
+                .computeIfAbsent(slot.psychologistId(), id -> new ConcurrentSkipListMap<>())
+                .compute(slot.slotDate(), (date, day) -> {
+                    List<Slot> merged = new ArrayList<>(day == null ? List.of() : List.of(day));
+                    merged.removeIf(existing -> existing.timeSlotId().equals(slot.timeSlotId()));
+                    merged.add(slot);
+                    merged.sort(BY_START);
+                    return merged.toArray(Slot[]::new);
+                });
+    }
+
+    private static void update(State current, String timeSlotId, UnaryOperator<Slot> change) {
+        Location location = current.locations.get(timeSlotId);
+        if (location == null) {
+            return;
+        }
+        NavigableMap<LocalDate, Slot[]> days = current.byPsychologist.get(location.psychologistId());
+        days.computeIfPresent(location.slotDate(), (date, day) -> {
+            Slot[] copy = day.clone();
+            for (int i = 0; i < copy.length; i++) {
+                if (copy[i].timeSlotId().equals(timeSlotId)) {
+                    copy[i] = change.apply(copy[i]);
+                }
+            }
+            return copy;
+        });
+    }
+
+    private static Slot toSlot(Object[] row) {
+        return new Slot((String) row[0], (String) row[1], (LocalDate) row[2],
+                (LocalTime) row[3], (LocalTime) row[4],
+                (Integer) row[5], (Integer) row[6], (TimeslotStatus) row[7]);
+    }
+
+    private static Slot withBookings(Slot slot, int bookings, TimeslotStatus status) {
+        return new Slot(slot.timeSlotId(), slot.psychologistId(), slot.slotDate(), slot.startTime(), slot.endTime(),
+                slot.maxCapacity(), bookings, status);
+    }
+
+    private static List<Slot> flatten(Collection<Slot[]> days) {
+        List<Slot> result = new ArrayList<>();
+        days.forEach(day -> result.addAll(Arrays.asList(day)));
+        return result;
+    }
+}
@@ -0,0 +1,152 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.dto.survey.SurveyBulkSubmissionRequest;
+import com.healthy.backend.dto.survey.SurveyBulkSubmissionResponse;
+import com.healthy.backend.dto.survey.SurveySubmission;
+import com.healthy.backend.dto.survey.SurveySubmissionResult;
+import com.healthy.backend.entity.Students;
+import com.healthy.backend.entity.SurveyQuestionOptionsChoices;
+import com.healthy.backend.entity.SurveyResult;
+import com.healthy.backend.exception.ResourceInvalidException;
+import com.healthy.backend.repository.StudentRepository;
+import com.healthy.backend.repository.SurveyResultRepository;
+import com.healthy.backend.survey.SurveyDefinition;
+import com.healthy.backend.survey.SurveyScorer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Nhận bài nộp của cả lớp cho một survey trong một request (làm trên máy dùng chung rồi upload sau).
+ * Chấm trong bộ nhớ bằng {@link SurveyScorer}, lấy ID cho mọi kết quả bằng một lần lease,
+ * insert kết quả và đáp án theo JDBC batch, điểm trung bình của học sinh được cập nhật cùng lần flush.
+ * Bài nộp lỗi bị bỏ qua và báo lại theo vị trí, các bài còn lại vẫn được lưu.
+ */
+@Service
+@RequiredArgsConstructor
+public class SurveyBulkSubmissionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SurveyBulkSubmissionService.class);
+
+    private final SurveyDefinitionCache surveyDefinitionCache;
+    private final SurveyService surveyService;
+    private final GeneralService generalService;
+    private final StudentRepository studentRepository;
+    private final SurveyResultRepository surveyResultRepository;
+    private final DashboardRollupService dashboardRollupService;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private record Accepted(int index, SurveySubmission submission, SurveyScorer.Score score) {
+    }
+
+    @Transactional
+    public SurveyBulkSubmissionResponse submit(SurveyBulkSubmissionRequest request) {
+        long started = System.nanoTime();
+        SurveyDefinition survey = surveyDefinitionCache.get(request.getSurveyId());
+        List<SurveySubmission> submissions = request.getSubmissions();
+
+        Set<String> studentIds = submissions.stream()
+                .map(SurveySubmission::getStudentId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<String, Students> students = studentRepository.findAllById(studentIds).stream()
+                .collect(Collectors.toMap(Students::getStudentID, Function.identity()));
+
+        SurveySubmissionResult[] results = new SurveySubmissionResult[submissions.size()];
+        List<Accepted> accepted = new ArrayList<>(submissions.size());
+        for (int i = 0; i < submissions.size(); i++) {
+            SurveySubmission submission = submissions.get(i);
+            String error = null;
+            SurveyScorer.Score score = null;
+            if (submission == null || submission.getStudentId() == null || submission.getOptionIds() == null) {
+                error = "studentId and optionIds are required";
+            } else if (!students.containsKey(submission.getStudentId())) {
+                error = "Student not found " + submission.getStudentId();
+            } else {
+                try {
+                    score = survey.scorer().score(submission.getOptionIds());
+                } catch (ResourceInvalidException e) {
+                    error = e.getMessage();
+                }
+            }
+
+            if (error != null) {
+                results[i] = SurveySubmissionResult.builder()
+                        .index(i)
+                        .studentId(submission == null ? null : submission.getStudentId())
+                        .error(error)
+                        .build();
+            } else {
+                accepted.add(new Accepted(i, submission, score));
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            save(survey, accepted, students, results);
+        }
+
+        logger.info("Bulk submission for survey {}: {} accepted, {} rejected in {} ms",
+                survey.surveyId(), accepted.size(), submissions.size() - accepted.size(),
+                (System.nanoTime() - started) / 1_000_000);
+        return new SurveyBulkSubmissionResponse(
+                survey.surveyId(),
+                accepted.size(),
+                submissions.size() - accepted.size(),
+                Arrays.asList(results));
+    }
+
+    private void save(SurveyDefinition survey, List<Accepted> accepted, Map<String, Students> students,
+                      SurveySubmissionResult[] results) {
+        // Số kết quả đã có của từng học sinh, tăng dần khi một học sinh nộp nhiều bài trong cùng request
+        Map<String, Integer> resultCounts = new HashMap<>();
+        for (Object[] row : surveyResultRepository.countResultByStudents(survey.surveyId(),
+                accepted.stream().map(a -> a.submission().getStudentId()).collect(Collectors.toSet()))) {
+            resultCounts.put((String) row[0], ((Long) row[1]).intValue());
+        }
+
+        List<String> resultIds = generalService.generateSurveyResultIds(accepted.size());
+        Map<LocalDate, Integer> createdPerDay = new HashMap<>();
+        for (int i = 0; i < accepted.size(); i++) {
+            Accepted submission = accepted.get(i);
+            String studentId = submission.submission().getStudentId();
+            SurveyScorer.Score score = submission.score();
+
+            // persist thay vì save: ID tự gán nên save() sẽ merge và SELECT từng dòng trước khi insert
+            SurveyResult surveyResult = new SurveyResult(resultIds.get(i), survey.surveyId(), studentId,
+                    score.total(), score.maxScore());
+            entityManager.persist(surveyResult);
+            List<String> optionIds = submission.submission().getOptionIds();
+            for (int a = 0; a < optionIds.size(); a++) {
+                entityManager.persist(new SurveyQuestionOptionsChoices(surveyResult.getResultID(),
+                        survey.scorer().questionId(score.answerQuestions()[a]), optionIds.get(a)));
+            }
+
+            int previous = resultCounts.getOrDefault(studentId, 0);
+            surveyService.applyAvgScore(survey.categoryId(), score.total(), previous, students.get(studentId));
+            resultCounts.put(studentId, previous + 1);
+
+            createdPerDay.merge(surveyResult.getCreatedAt().toLocalDate(), 1, Integer::sum);
+            results[submission.index()] = SurveySubmissionResult.builder()
+                    .index(submission.index())
+                    .studentId(studentId)
+                    .resultId(surveyResult.getResultID())
+                    .score(score.total() + "/" + score.maxScore())
+                    .build();
+        }
+        // Insert (order_inserts gom theo bảng) rồi UPDATE Students theo batch trong cùng một lần flush
+        entityManager.flush();
+
+        createdPerDay.forEach((day, count) -> dashboardRollupService.surveyResultsCreated(survey.surveyId(), day, count));
+    }
+}
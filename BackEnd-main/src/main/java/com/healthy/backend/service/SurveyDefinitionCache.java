@@ -0,0 +1,104 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.entity.SurveyQuestionOptions;
+import com.healthy.backend.entity.SurveyQuestions;
+import com.healthy.backend.entity.Surveys;
+import com.healthy.backend.exception.ResourceNotFoundException;
+import com.healthy.backend.repository.SurveyQuestionOptionsRepository;
+import com.healthy.backend.repository.SurveyQuestionRepository;
+import com.healthy.backend.repository.SurveyRepository;
+import com.healthy.backend.survey.SurveyDefinition;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Cache {@link SurveyDefinition} theo surveyID. Lần đầu dựng bằng hai query (câu hỏi kèm survey/category, rồi toàn bộ
+ * đáp án của các câu hỏi đó); các lần sau không chạm DB. Bị xóa sau khi transaction sửa survey/câu hỏi/đáp án commit.
+ */
+@Component
+@RequiredArgsConstructor
+public class SurveyDefinitionCache {
+
+    private final SurveyRepository surveyRepository;
+    private final SurveyQuestionRepository surveyQuestionRepository;
+    private final SurveyQuestionOptionsRepository surveyQuestionOptionsRepository;
+
+    private final Map<String, SurveyDefinition> definitions = new ConcurrentHashMap<>();
+    // Tăng mỗi lần evict; bản dựng bắt đầu trước một lần evict thì không được đưa vào cache vì có thể đã cũ
+    private final AtomicLong generation = new AtomicLong();
+
+    public SurveyDefinition get(String surveyId) {
+        SurveyDefinition definition = definitions.get(surveyId);
+        if (definition != null) {
+            return definition;
+        }
+
+        long startedAt = generation.get();
+        definition = load(surveyId);
+        if (generation.get() == startedAt) {
+            SurveyDefinition existing = definitions.putIfAbsent(surveyId, definition);
+            if (existing != null) {
+                return existing;
+            }
+        }
+        return definition;
+    }
+
+    public void evict(String surveyId) {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            definitions.remove(surveyId);
+        });
+    }
+
+    public void evictAll() {
+        TransactionHooks.afterCommit(() -> {
+            generation.incrementAndGet();
+            definitions.clear();
+        });
+    }
+
+    private SurveyDefinition load(String surveyId) {
+        List<SurveyQuestions> questions = surveyQuestionRepository.findDefinitionQuestions(surveyId);
+        if (questions.isEmpty()) {
+            if (!surveyRepository.existsById(surveyId)) {
+                throw new ResourceNotFoundException("No survey found for surveyID " + surveyId);
+            }
+            throw new ResourceNotFoundException("No questions found for surveyID " + surveyId);
+        }
+
+        Map<String, List<SurveyDefinition.Option>> optionsByQuestion = surveyQuestionOptionsRepository
+                .findByQuestionIDInOrderByOptionID(questions.stream().map(SurveyQuestions::getQuestionID).toList())
+                .stream()
+                .collect(Collectors.groupingBy(SurveyQuestionOptions::getQuestionID,
+                        Collectors.mapping(option -> new SurveyDefinition.Option(
+                                option.getOptionID(),
+                                option.getOptionText(),
+                                option.getScore() == null ? 0 : option.getScore()), Collectors.toList())));
+
+        List<SurveyDefinition.Question> compiled = new ArrayList<>(questions.size());
+        for (SurveyQuestions question : questions) {
+            compiled.add(new SurveyDefinition.Question(
+                    question.getQuestionID(),
+                    question.getQuestionText(),
+                    question.getCategory() == null ? null : question.getCategory().getCategoryName().name(),
+                    optionsByQuestion.getOrDefault(question.getQuestionID(), List.of())));
+        }
+
+        Surveys survey = questions.getFirst().getSurvey();
+        return new SurveyDefinition(
+                survey.getSurveyID(),
+                survey.getSurveyName(),
+                survey.getDescription(),
+                survey.getCategoryID(),
+                survey.getStatus(),
+                compiled);
+    }
+}
@@ -10,6 +10,9 @@ import com.healthy.backend.exception.ResourceNotFoundException;
 import com.healthy.backend.mapper.SurveyMapper;
 import com.healthy.backend.repository.*;
 import com.healthy.backend.security.TokenService;
+import com.healthy.backend.survey.SurveyDefinition;
+import com.healthy.backend.survey.SurveyOverview;
+import com.healthy.backend.survey.SurveyScorer;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -34,6 +37,8 @@ public class SurveyService {
     private final StudentRepository studentRepository;
     private final SurveyQuestionRepository surveyQuestionRepository;
     private final ParentRepository parentRepository;
+    private final DashboardRollupService dashboardRollupService;
+    private final SurveyDefinitionCache surveyDefinitionCache;
 
     private final SurveyMapper surveyMapper;
 
@@ -46,13 +51,13 @@ public class SurveyService {
             yield getSurveyResult(List.of(student), ""); 
         }
         case MANAGER, PSYCHOLOGIST -> {
-            List<Surveys> surveys = surveyRepository.findAll();
-            yield surveys.stream()
+            // Hai query bất kể số survey: tổng học sinh và một query tổng hợp cho mọi survey
+            long totalStudents = studentRepository.count();
+            yield surveyRepository.findOverviews().stream()
                 .map(survey -> surveyMapper.buildManagerSurveysResponse(
                     survey,
-                    getTotalQuestion(survey),
-                    getSurveyStatus(survey),
-                    getTotalStudentDone(survey) + "/" + getTotalStudent()
+                    getSurveyStatus(survey, totalStudents),
+                    survey.completedStudents() + "/" + totalStudents
                 ))
                 .toList();
         }
@@ -114,36 +119,34 @@ public class SurveyService {
 
         studentId = tokenService.validateRequestStudentID(request, studentId);
 
-        if (!surveyResultRepository.existsBySurveyIDAndStudentID(surveyID, studentId)) {
+        List<SurveyResult> surveyResult = surveyResultRepository.findBySurveyIDAndStudentID(surveyID, studentId);
+        if (surveyResult.isEmpty()) {
             throw new ResourceNotFoundException("No survey found for surveyID " + surveyID + " with studentID " + studentId);
         }
 
-        Surveys survey = surveyRepository.findById(surveyID).orElseThrow(
-                () -> new ResourceNotFoundException("No survey found for surveyID " + surveyID));
-        List<SurveyResult> surveyResult = surveyResultRepository.findBySurveyIDAndStudentID(surveyID, studentId);
-        List<SurveyQuestions> surveyQuestions = surveyQuestionRepository.findBySurveyID(surveyID);
-        if (surveyQuestions.isEmpty()) {
-            throw new ResourceNotFoundException("No questions found for surveyID " + surveyID);
+        SurveyDefinition survey = surveyDefinitionCache.get(surveyID);
+        // Ghép đáp án theo questionID: bài nộp được bỏ trống câu hỏi nên choices không thẳng hàng với câu hỏi
+        Map<String, String> chosenOptions = new HashMap<>();
+        for (SurveyQuestionOptionsChoices choice : surveyResult.getLast().getChoices()) {
+            chosenOptions.put(choice.getQuestionID(), choice.getOptionID());
+        }
+        List<SurveyDefinition.Question> questions = survey.questions();
+        List<QuestionResponse> questionList = new ArrayList<>(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            String chosenOptionId = chosenOptions.get(questions.get(i).questionId());
+            List<QuestionOption> questionOption = questions.get(i).options().stream()
+                    .map(surveyMapper::buildNewQuestionOption)
+                    .toList();
+            questionOption.forEach(option -> {
+                if (Objects.equals(option.getAnswerID(), chosenOptionId)) {
+                    option.setChecked(true);
+                }
+            });
+            questionList.add(surveyMapper.buildQuestionResponse(questionOption, questions.get(i), i));
         }
-        List<QuestionResponse> questionList = surveyQuestions
-                .stream()
-                .map(questions -> {
-                            List<QuestionOption> questionOption = getQuestionResponse(questions);
-                            questionOption.forEach(option -> {
-                                if (option.getAnswerID().equals(surveyResult.getLast().getChoices().get(surveyQuestions.indexOf(questions)).getOptionID())) {
-                                    option.setChecked(true);
-                                }
-                            });
-                            return surveyMapper.buildQuestionResponse(
-                                    questionOption,
-                                    questions,
-                                    surveyQuestions.indexOf(questions));
-                        }
-                )
-                .toList();
         return surveyMapper.buildSurveyResultResponse(questionList,
                 survey,
-                getSurveyStatus(survey),
+                getSurveyStatus(surveyID),
                 surveyResult.getLast().getResult() + "/" + surveyResult.getLast().getMaxScore());
     }
 
@@ -185,36 +188,22 @@ public class SurveyService {
             surveyQuestionRepository.save(surveyQuestion1);
             categoriesRepository.save(categories);
         }
+        // Tên category dùng chung cho câu hỏi của mọi survey
+        surveyDefinitionCache.evictAll();
     }
 
     public SurveyQuestionResponse getSurveyQuestion(String surveyID) {
 
-        Surveys surveys = surveyRepository.findById(surveyID).orElseThrow(
-                () -> new ResourceNotFoundException("No survey found for surveyID " + surveyID)
-        );
-        List<SurveyQuestions> surveyQuestions = surveyQuestionRepository.findBySurveyID(surveyID);
-        if (surveyQuestions.isEmpty()) {
-            throw new ResourceNotFoundException("No questions found for surveyID " + surveyID);
+        SurveyDefinition survey = surveyDefinitionCache.get(surveyID);
+        List<SurveyDefinition.Question> questions = survey.questions();
+        List<QuestionResponse> questionList = new ArrayList<>(questions.size());
+        for (int i = 0; i < questions.size(); i++) {
+            questionList.add(surveyMapper.buildQuestionResponse(
+                    questions.get(i).options().stream().map(surveyMapper::buildNewQuestionOption).toList(),
+                    questions.get(i),
+                    i));
         }
-        List<QuestionResponse> questionList = surveyQuestions
-                .stream()
-                .map(questions -> {
-                            return surveyMapper.buildQuestionResponse(
-                                    getQuestionResponse(questions),
-                                    questions,
-                                    surveyQuestions.indexOf(questions));
-                        }
-                )
-                .toList();
-        return surveyMapper.buildSurveyQuestionResponse(questionList, surveys);
-    }
-
-    private List<QuestionOption> getQuestionResponse(SurveyQuestions questions) {
-        return surveyQuestionOptionsRepository
-                .findByQuestionID(questions.getQuestionID())
-                .stream()
-                .map(surveyMapper::buildNewQuestionOption)
-                .toList();
+        return surveyMapper.buildSurveyQuestionResponse(questionList, survey);
     }
 
 
@@ -278,6 +267,7 @@ public class SurveyService {
                     }
                     surveyQuestionOptionsRepository.saveAll(optionsList);
                 }
+                surveyDefinitionCache.evict(surveyId);
 
             default:
                 throw new RuntimeException("You don't have permission to access");
@@ -315,6 +305,7 @@ public class SurveyService {
 
         }
         surveyQuestionOptionsRepository.saveAll(optionsList);
+        surveyDefinitionCache.evict(surveyId);
     }
 
     public void updateSurveyStatus(String surveyId, SurveyRequest status) {
@@ -322,179 +313,81 @@ public class SurveyService {
                 .orElseThrow(() -> new ResourceNotFoundException("Survey Not found"));
         survey.setStatus(SurveyStatus.valueOf(status.getStatus()));
         surveyRepository.save(survey);
-    }
-
-
-    private String calculateTotalRightQuestion(List<SurveyQuestions> questions, List<String> options, Surveys survey, Students student) {
-        Map<String, Integer> mapScore = new HashMap<>();
-        int sum = 0;
-        int count = questions.size();
-        int count1 = 0;
-        
-
-        questions.forEach(question -> {
-
-            List<SurveyQuestionOptions> surveyOption = surveyQuestionOptionsRepository.findByQuestionID(question.getQuestionID());
-            surveyOption.forEach(s -> {
-                mapScore.put(s.getOptionID(), s.getScore());
-            });
-        });
-
-        for (String surveyQuestionOption : options) {
-            sum += mapScore.getOrDefault(surveyQuestionOption, 0);
-        }
-        
-
-        switch (survey.getCategoryID()) {
-            case "CAT001" -> {
-                newAvgScore(survey, sum, student);
-                count1 = count * 4;
-            }
-            case "CAT002" -> {
-                newAvgScore(survey, sum, student);
-                count1 = count * 3;
-            } 
-            
-            case "CAT003" -> {
-                newAvgScore(survey, sum, student);
-                count1 = count * 3;
-            } 
-
-            default -> {
-                throw new IllegalArgumentException("Invalid category: " + survey.getCategoryID());
-            }
-        }
-
-        return sum + "/" + count1;
-
+        surveyDefinitionCache.evict(surveyId);
     }
 
 
     public StatusStudent getScoreFromStudentInSuv(String surveyId, List<String> optionId, String studentId) {
-        StatusStudent status = new StatusStudent();
-
-        Surveys survey = surveyRepository.findById(surveyId)
-                .orElseThrow(() -> new ResourceNotFoundException("Not found survey"));
-                
-
-        List<SurveyQuestions> surveyQuestion = surveyQuestionRepository.findBySurveyID(survey.getSurveyID());
-        int sizeQues = surveyQuestionRepository.countQuestionInSuv(surveyId);
-        String check = null;
-        for (String option : optionId) {
-            if (Objects.equals(check, option)) {
-                return null;
-            }
-            check = option;
-        }
+        SurveyDefinition survey = surveyDefinitionCache.get(surveyId);
+        // Đáp án lạ hoặc một câu hỏi được trả lời hai lần -> ResourceInvalidException
+        SurveyScorer.Score score = survey.scorer().score(optionId);
 
         Students student = studentRepository.findById(studentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Not found student"));
+        newAvgScore(survey, score.total(), student);
 
-        String total = calculateTotalRightQuestion(surveyQuestion, optionId, survey, student);
-        String[] parts = total.split("/");
-        String firstParts = parts[0];
-        int num = Integer.parseInt(firstParts);
-        
-        int result = switch (survey.getCategoryID()) {
-            case "CAT001" -> sizeQues * 4;
-            case "CAT002" -> sizeQues * 3;
-            case "CAT003" -> sizeQues * 3;
-            default -> throw new IllegalArgumentException("Invalid category: " + survey.getCategoryID());
-        };
-
-        if (total != null) {
-            SurveyResult surveyResult = new SurveyResult();
-            String newResultId = generalService.generateSurveyResultId();
-
-            surveyResult.setResultID(newResultId);
-            surveyResult.setStudentID(studentId);
-            surveyResult.setSurveyID(surveyId);
-            surveyResult.setMaxScore(result);
-            surveyResult.setResult(num);
-
-            surveyResultRepository.save(surveyResult);
+        SurveyResult surveyResult = new SurveyResult();
+        surveyResult.setResultID(generalService.generateSurveyResultId());
+        surveyResult.setStudentID(studentId);
+        surveyResult.setSurveyID(surveyId);
+        surveyResult.setMaxScore(score.maxScore());
+        surveyResult.setResult(score.total());
 
-            if (surveyResult.getResultID() != null) {
-                saveSurveyOptionsChoice(surveyResult.getResultID(), optionId);
+        // save() merge vì ID tự gán, CreatedAt chỉ có trên bản trả về
+        dashboardRollupService.surveyResultCreated(surveyResultRepository.save(surveyResult));
+        saveSurveyOptionsChoice(surveyResult.getResultID(), optionId, survey.scorer(), score);
 
-                status = surveyMapper.maptoResultStudent1(
-                        getStatusStudent(surveyId, studentId),
-                        total,
-                        studentId);
-                if (status == null) {
-                    return surveyMapper.maptoResultStudent1("0", "Not Finished", studentId);
-                }
-
-            }
-        }
-        return status;
+        return surveyMapper.maptoResultStudent1(
+                getStatusStudent(surveyId, studentId),
+                score.total() + "/" + score.maxScore(),
+                studentId);
     }
 
-    private void saveSurveyOptionsChoice(String resultID, List<String> optionId) {
-        List<SurveyQuestionOptionsChoices> choiceList = new ArrayList<>();
-        for (String surveyQuestionOption : optionId) {
-            SurveyQuestionOptions question = surveyQuestionOptionsRepository.findByOptionID(surveyQuestionOption);
-            String questionId = question.getQuestionID();
-
-            SurveyQuestionOptionsChoices sqc = new SurveyQuestionOptionsChoices(resultID, questionId, surveyQuestionOption);
-            choiceList.add(sqc);
+    private void saveSurveyOptionsChoice(String resultID, List<String> optionId, SurveyScorer scorer, SurveyScorer.Score score) {
+        List<SurveyQuestionOptionsChoices> choiceList = new ArrayList<>(optionId.size());
+        for (int i = 0; i < optionId.size(); i++) {
+            String questionId = scorer.questionId(score.answerQuestions()[i]);
+            choiceList.add(new SurveyQuestionOptionsChoices(resultID, questionId, optionId.get(i)));
         }
         surveyQuestionOptionsChoicesRepository.saveAll(choiceList);
     }
 
-    private List<SurveysResponse> getSurveyResult(List<Students> students,String ID) {
-        List<Surveys> surveyList = surveyRepository.findAll();
-        HashMap<String, String> map = new HashMap<>();
-
-        for (Surveys survey : surveyList) {
-            students.forEach(
-                student -> {
-                    map.put(student.getStudentID(), getStatusStudent(survey.getSurveyID(),student.getStudentID()));
+    private List<SurveysResponse> getSurveyResult(List<Students> students, String ID) {
+        // Một query cho mọi kết quả của các học sinh, nhóm trong bộ nhớ theo (survey, học sinh)
+        List<String> studentIds = students.stream().map(Students::getStudentID).toList();
+        Map<String, Map<String, List<SurveyResult>>> resultsBySurvey = studentIds.isEmpty()
+                ? Map.of()
+                : surveyResultRepository.findByStudentIDs(studentIds).stream()
+                        .collect(Collectors.groupingBy(SurveyResult::getSurveyID,
+                                Collectors.groupingBy(SurveyResult::getStudentID)));
+
+        boolean parent = ID.contains("PRT");
+        long totalStudents = parent ? 0 : studentRepository.count();
+
+        List<SurveysResponse> responses = new ArrayList<>();
+        for (SurveyOverview survey : surveyRepository.findOverviews()) {
+            Map<String, List<SurveyResult>> surveyResults = resultsBySurvey.getOrDefault(survey.surveyId(), Map.of());
+            List<StatusStudent> statusStuList = new ArrayList<>();
+            for (Students student : students) {
+                List<SurveyResult> surveyResultSTD = surveyResults.get(student.getStudentID());
+                if (surveyResultSTD == null) {
+                    statusStuList.add(surveyMapper.maptoResultStudent1("NOT COMPLETED", "0/0", student.getStudentID()));
+                    continue;
                 }
-            );
+                for (SurveyResult result : surveyResultSTD) {
+                    statusStuList.add(surveyMapper.maptoResultStudent1(
+                            "COMPLETED",
+                            result.getResult() + "/" + result.getMaxScore(),
+                            student.getStudentID()));
+                }
+            }
+            responses.add(surveyMapper.buildSurveysResponse1(survey,
+                    parent ? null : getSurveyStatus(survey, totalStudents),
+                    statusStuList));
         }
-        
-        return surveyList.stream()
-                .map(survey -> {
-                    List<StatusStudent> statusStuList = students.stream()
-                        .map(student -> {
-                            
-                            List<SurveyResult> surveyResultSTD = surveyResultRepository.findBySurveyIDAndStudentID(
-                                survey.getSurveyID(),
-                                student.getStudentID());
-
-                            String studentStatus1 = getStatusStudent(survey.getSurveyID(), student.getStudentID());    
-
-                            if (surveyResultSTD.isEmpty()) {
-                                return List.of(surveyMapper.maptoResultStudent1(
-                                    studentStatus1,
-                                    "0/0", 
-                                    student.getStudentID()
-                                )
-                                );
-                            }
-
-                            return surveyResultSTD.stream()
-                                .map(result -> {
-                                    return surveyMapper.maptoResultStudent1(
-                                        map.get(student.getStudentID()),
-                                        result.getResult() + "/" + result.getMaxScore(),
-                                        student.getStudentID()
-                                        );
-                                })
-                            .collect(Collectors.toList());    
-                        })
-                        .flatMap(List :: stream)
-                        .collect(Collectors.toList());
-                             
-                    return surveyMapper.buildSurveysResponse1(survey,
-                    getTotalQuestion(survey),
-                    ID.contains("PRT") ? null : getSurveyStatus(survey),
-                    statusStuList);
-                })
-                .collect(Collectors.toList());                      
-       } 
-    
+        return responses;
+    }
+
 
     @Transactional
     public int calculateTotalScore(List<SurveyQuestionOptionsChoices> questionOptionsChoices) {
@@ -528,20 +421,16 @@ public class SurveyService {
                 .sum();
     }
 
-    private int getTotalQuestion(Surveys surveys) {
-        return (int) surveyQuestionRepository.countBySurveyID(surveys.getSurveyID());
-    }
-
-    private int getTotalStudentDone(Surveys surveys) {
-        return (int) surveyResultRepository.countDistinctStudentsBySurveyID(surveys.getSurveyID());
-    }
-
     private int getTotalStudent() {
         return (int) studentRepository.count();
     }
 
-    private String getSurveyStatus(Surveys surveys) {
-        return getTotalStudent() == getTotalStudentDone(surveys) ? "COMPLETED" : "NOT COMPLETED";
+    private static String getSurveyStatus(SurveyOverview survey, long totalStudents) {
+        return survey.completedStudents() == totalStudents ? "COMPLETED" : "NOT COMPLETED";
+    }
+
+    private String getSurveyStatus(String surveyId) {
+        return getTotalStudent() == surveyResultRepository.countDistinctStudentsBySurveyID(surveyId) ? "COMPLETED" : "NOT COMPLETED";
     }
 
 
@@ -580,9 +469,14 @@ public class SurveyService {
     }
 
 
-    public void newAvgScore(Surveys survey, int result, Students student) {
-            String categoryId = survey.getCategoryID();
-            int size = surveyResultRepository.countResultStudent(survey.getSurveyID(), student.getStudentID());
+    public void newAvgScore(SurveyDefinition survey, int result, Students student) {
+            int size = surveyResultRepository.countResultStudent(survey.surveyId(), student.getStudentID());
+            applyAvgScore(survey.categoryId(), result, size, student);
+            studentRepository.save(student);
+    }
+
+    // size: số kết quả đã có của học sinh trong survey này, trước kết quả mới; chỉ đổi entity, không lưu
+    public void applyAvgScore(String categoryId, int result, int size, Students student) {
             BigDecimal newAverage = BigDecimal.ZERO;
             
             switch (categoryId) {
@@ -594,7 +488,6 @@ public class SurveyService {
                         size);
                     
                     student.setStressScore(newAverage);
-                    studentRepository.save(student);
                     break;
 
                 case "CAT002":
@@ -605,7 +498,6 @@ public class SurveyService {
                         size);
                     
                     student.setAnxietyScore(newAverage);
-                    studentRepository.save(student);
                     break;
 
                 case "CAT003" :
@@ -616,7 +508,6 @@ public class SurveyService {
                         size);
                     
                     student.setDepressionScore(newAverage);
-                    studentRepository.save(student);
                     break;
                            
                 default:
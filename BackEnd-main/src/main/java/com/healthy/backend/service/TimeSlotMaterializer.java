@@ -0,0 +1,84 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.entity.DefaultTimeSlot;
+import com.healthy.backend.entity.Psychologists;
+import com.healthy.backend.entity.TimeSlots;
+import com.healthy.backend.enums.TimeslotStatus;
+import com.healthy.backend.repository.TimeSlotRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Tạo TimeSlots từ DefaultTimeSlot cho nhiều ngày cùng lúc: một query range để bỏ qua slot đã có,
+ * insert bằng persist + flush theo batch (hibernate.jdbc.batch_size).
+ */
+@Service
+@RequiredArgsConstructor
+public class TimeSlotMaterializer {
+
+    private static final int DEFAULT_CAPACITY = 3;
+
+    private final TimeSlotRepository timeSlotRepository;
+    private final SlotAvailabilityIndex slotAvailabilityIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public List<TimeSlots> materialize(Psychologists psychologist, SortedMap<LocalDate, List<DefaultTimeSlot>> plan) {
+        if (plan.isEmpty()) {
+            return List.of();
+        }
+        String psychologistId = psychologist.getPsychologistID();
+
+        Set<String> existing = new HashSet<>();
+        for (Object[] row : timeSlotRepository.findSlotTimesInRange(psychologistId, plan.firstKey(), plan.lastKey())) {
+            existing.add(row[0] + "|" + row[1] + "|" + row[2]);
+        }
+
+        List<TimeSlots> created = new ArrayList<>();
+        for (Map.Entry<LocalDate, List<DefaultTimeSlot>> day : plan.entrySet()) {
+            LocalDate slotDate = day.getKey();
+            for (DefaultTimeSlot defaultSlot : day.getValue()) {
+                if (!existing.add(slotDate + "|" + defaultSlot.getStartTime() + "|" + defaultSlot.getEndTime())) {
+                    continue;
+                }
+                TimeSlots slot = new TimeSlots();
+                slot.setSlotDate(slotDate);
+                slot.setStartTime(defaultSlot.getStartTime());
+                slot.setEndTime(defaultSlot.getEndTime());
+                slot.setPsychologist(psychologist);
+                slot.setMaxCapacity(DEFAULT_CAPACITY);
+                slot.setStatus(TimeslotStatus.AVAILABLE);
+                slot.setDefaultSlotId(defaultSlot.getSlotId());
+                slot.setTimeSlotsID(generateSlotId(psychologistId, slotDate, defaultSlot.getSlotId()));
+
+                // persist thay vì save: ID tự gán nên save() sẽ merge và SELECT từng dòng trước khi insert
+                entityManager.persist(slot);
+                created.add(slot);
+                if (created.size() % batchSize == 0) {
+                    entityManager.flush();
+                }
+            }
+        }
+        entityManager.flush();
+
+        slotAvailabilityIndex.slotsCreated(created);
+        return created;
+    }
+
+    private String generateSlotId(String psychologistId, LocalDate date, String defaultSlotId) {
+        return "TS-" + psychologistId + "-" + date.toString() + "-" + defaultSlotId;
+    }
+}
@@ -0,0 +1,27 @@
+package com.healthy.backend.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cập nhật các bản sao trong bộ nhớ (cache, index, histogram) chỉ khi transaction đã commit,
+ * để request khác không thấy dữ liệu bị rollback. Ngoài transaction thì chạy ngay.
+ */
+final class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -170,7 +170,7 @@ public class UserService {
             return this.getPsychologistAppointments(userId);
         }
         if (users.getRole().equals(Role.MANAGER)) {
-            return appointmentRepository.findAll().stream()
+            return appointmentRepository.findAllWithDetails().stream()
                     .map(appointmentMapper::buildAppointmentResponse)
                     .toList();
         }
@@ -185,7 +185,7 @@ public class UserService {
             return null;
         }
 
-        appointmentsList = appointmentRepository.findByPsychologistID(
+        appointmentsList = appointmentRepository.findByPsychologistIDWithDetails(
                 psychologistRepository.findByUserID(userId).getPsychologistID()
         );
 
@@ -194,9 +194,7 @@ public class UserService {
                         appointmentMapper.buildAppointmentResponse(
                                 appointment,
                                 null,
-                                studentMapper.buildStudentResponse(
-                                        studentRepository.findByUserID(
-                                                appointment.getStudentID()))
+                                studentMapper.buildStudentResponse(appointment.getStudent())
                         ))
                 .toList() : null;
     }
@@ -207,14 +205,12 @@ public class UserService {
             return null;
         }
         return appointmentRepository
-                .findByStudentID(studentRepository.findByUserID(userId).getStudentID())
+                .findByStudentIDWithDetails(studentRepository.findByUserID(userId).getStudentID())
                 .stream()
                 .map(appointment ->
                         appointmentMapper.buildAppointmentResponse(
                                 appointment,
-                                psychologistsMapper.buildPsychologistResponse(
-                                        psychologistRepository.findByPsychologistID(
-                                                appointment.getPsychologistID())),
+                                psychologistsMapper.buildPsychologistResponse(appointment.getPsychologist()),
                                 null
                         ))
                 .toList();
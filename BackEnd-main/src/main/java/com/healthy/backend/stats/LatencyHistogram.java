@@ -0,0 +1,79 @@
+package com.healthy.backend.stats;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram kiểu HDR cho giá trị nguyên không âm (phút): giá trị nhỏ hơn 64 được đếm chính xác,
+ * từ đó trở lên mỗi lũy thừa của 2 chia thành 32 bucket, sai số tương đối tối đa khoảng 3%.
+ * Ghi lock-free.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    // Giá trị lớn hơn 2^40 phút được dồn vào bucket cuối
+    private static final int MAX_BITS = 40;
+    private static final long MAX_VALUE = (1L << MAX_BITS) - 1;
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + (MAX_BITS - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.min(Math.max(value, 0), MAX_VALUE)));
+    }
+
+    public LatencySummary summarize() {
+        // Chụp lại một lần để các percentile nhất quán với nhau
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        int last = -1;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+            if (snapshot[i] != 0) {
+                last = i;
+            }
+        }
+        if (count == 0) {
+            return new LatencySummary(0, null, null, null, null);
+        }
+        return new LatencySummary(count,
+                percentile(snapshot, count, 0.50),
+                percentile(snapshot, count, 0.90),
+                percentile(snapshot, count, 0.99),
+                valueOf(last));
+    }
+
+    private static long percentile(long[] snapshot, long count, double quantile) {
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < snapshot.length; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return valueOf(i);
+            }
+        }
+        return valueOf(snapshot.length - 1);
+    }
+
+    // package-private để test kiểm tra biên bucket
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int top = (int) (value >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    }
+
+    // Điểm giữa của bucket
+    static long valueOf(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long top = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return (top << shift) + (1L << (shift - 1));
+    }
+}
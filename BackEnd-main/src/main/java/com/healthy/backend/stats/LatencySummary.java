@@ -0,0 +1,19 @@
+package com.healthy.backend.stats;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LatencySummary {
+    private long count;
+    // Đơn vị phút; null khi chưa có dữ liệu
+    private Long p50;
+    private Long p90;
+    private Long p99;
+    private Long max;
+}
@@ -0,0 +1,40 @@
+package com.healthy.backend.survey;
+
+import com.healthy.backend.enums.SurveyStatus;
+
+import java.util.List;
+
+/**
+ * Ảnh chụp bất biến của một survey: thông tin chung, danh sách câu hỏi theo thứ tự và các đáp án kèm điểm.
+ * Dùng chung giữa các request nên không được sửa; DTO trả về client phải tạo mới từ đây.
+ * {@link SurveyScorer} được biên dịch sẵn cùng lúc để chấm bài nộp không cần query.
+ */
+public record SurveyDefinition(String surveyId,
+                               String title,
+                               String description,
+                               String categoryId,
+                               SurveyStatus status,
+                               List<Question> questions,
+                               SurveyScorer scorer) {
+
+    public SurveyDefinition(String surveyId, String title, String description, String categoryId,
+                            SurveyStatus status, List<Question> questions) {
+        this(surveyId, title, description, categoryId, status, questions,
+                SurveyScorer.compile(questions));
+    }
+
+    public SurveyDefinition {
+        questions = List.copyOf(questions);
+    }
+
+    public record Question(String questionId, String text, String categoryName, List<Option> options) {
+
+        public Question {
+            options = List.copyOf(options);
+        }
+    }
+
+    // Score null trong DB được coi là 0
+    public record Option(String optionId, String text, int score) {
+    }
+}
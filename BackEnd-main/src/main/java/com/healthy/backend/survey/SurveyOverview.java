@@ -0,0 +1,24 @@
+package com.healthy.backend.survey;
+
+import com.healthy.backend.enums.SurveyCategory;
+import com.healthy.backend.enums.SurveyStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * Một dòng của danh sách survey: thông tin survey kèm tên category, tên người tạo, số câu hỏi và
+ * số học sinh đã làm, lấy cho mọi survey bằng một query (SurveyRepository.findOverviews).
+ */
+public record SurveyOverview(String surveyId,
+                             String surveyName,
+                             String description,
+                             String details,
+                             String duration,
+                             String categoryId,
+                             SurveyCategory categoryName,
+                             SurveyStatus status,
+                             LocalDateTime createdAt,
+                             String creatorName,
+                             long questionCount,
+                             long completedStudents) {
+}
@@ -0,0 +1,94 @@
+package com.healthy.backend.survey;
+
+import com.healthy.backend.exception.ResourceInvalidException;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bảng chấm điểm đã biên dịch của một survey: optionID -> chỉ số đáp án, rồi tra mảng int để lấy câu hỏi và điểm.
+ * Bất biến, dựng một lần cùng {@link SurveyDefinition}; chấm một bài nộp chỉ cấp phát vài mảng nhỏ.
+ */
+public final class SurveyScorer {
+
+    private final String[] questionIds;
+    private final Map<String, Integer> optionIndex;
+    private final int[] optionQuestion;
+    private final int[] optionScore;
+    private final int[] questionMax;
+    private final int maxScore;
+
+    /**
+     * @param total           tổng điểm
+     * @param maxScore        tổng điểm cao nhất của mọi câu hỏi trong survey
+     * @param answerQuestions chỉ số câu hỏi của từng đáp án, cùng thứ tự với danh sách optionID đã nộp
+     */
+    public record Score(int total, int maxScore, int[] answerQuestions) {
+    }
+
+    public static SurveyScorer compile(List<SurveyDefinition.Question> questions) {
+        return new SurveyScorer(questions);
+    }
+
+    private SurveyScorer(List<SurveyDefinition.Question> questions) {
+        int optionCount = 0;
+        for (SurveyDefinition.Question question : questions) {
+            optionCount += question.options().size();
+        }
+
+        questionIds = new String[questions.size()];
+        questionMax = new int[questions.size()];
+        optionIndex = HashMap.newHashMap(optionCount);
+        optionQuestion = new int[optionCount];
+        optionScore = new int[optionCount];
+
+        int o = 0;
+        int max = 0;
+        for (int q = 0; q < questions.size(); q++) {
+            SurveyDefinition.Question question = questions.get(q);
+            questionIds[q] = question.questionId();
+            for (SurveyDefinition.Option option : question.options()) {
+                optionIndex.put(option.optionId(), o);
+                optionQuestion[o] = q;
+                optionScore[o] = option.score();
+                questionMax[q] = Math.max(questionMax[q], option.score());
+                o++;
+            }
+            max += questionMax[q];
+        }
+        maxScore = max;
+    }
+
+    // Mỗi câu hỏi được trả lời tối đa một lần; được bỏ trống câu hỏi
+    public Score score(List<String> optionIds) {
+        if (optionIds.size() > questionIds.length) {
+            throw new ResourceInvalidException("Too many answers: " + optionIds.size() + " for " + questionIds.length + " questions");
+        }
+        boolean[] answered = new boolean[questionIds.length];
+        int[] answerQuestions = new int[optionIds.size()];
+        int total = 0;
+        for (int i = 0; i < optionIds.size(); i++) {
+            Integer o = optionIndex.get(optionIds.get(i));
+            if (o == null) {
+                throw new ResourceInvalidException("Option " + optionIds.get(i) + " does not belong to this survey");
+            }
+            int q = optionQuestion[o];
+            if (answered[q]) {
+                throw new ResourceInvalidException("Question " + questionIds[q] + " is answered more than once");
+            }
+            answered[q] = true;
+            answerQuestions[i] = q;
+            total += optionScore[o];
+        }
+        return new Score(total, maxScore, answerQuestions);
+    }
+
+    public String questionId(int questionIndex) {
+        return questionIds[questionIndex];
+    }
+
+    public int maxScore() {
+        return maxScore;
+    }
+}
@@ -0,0 +1,90 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.entity.Appointments;
+import com.healthy.backend.entity.Psychologists;
+import com.healthy.backend.entity.Students;
+import com.healthy.backend.entity.TimeSlots;
+import com.healthy.backend.entity.Users;
+import com.healthy.backend.enums.AppointmentStatus;
+import com.healthy.backend.enums.Gender;
+import com.healthy.backend.enums.PsychologistStatus;
+import com.healthy.backend.enums.Role;
+import com.healthy.backend.repository.AppointmentRepository;
+import com.healthy.backend.repository.PsychologistRepository;
+import com.healthy.backend.repository.StudentRepository;
+import com.healthy.backend.repository.TimeSlotRepository;
+import com.healthy.backend.repository.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Dữ liệu mẫu cho các test appointment chạy trên MySQL thật; dùng qua {@code @Import(AppointmentFixtures.class)}.
+ */
+@TestComponent
+@RequiredArgsConstructor
+class AppointmentFixtures {
+
+    static final LocalDate SLOT_DATE = LocalDate.now().plusYears(1);
+
+    private static final AtomicInteger PERSON = new AtomicInteger();
+    private static final AtomicInteger SLOT_NUMBER = new AtomicInteger();
+
+    private final GeneralService generalService;
+    private final UserRepository userRepository;
+    private final StudentRepository studentRepository;
+    private final PsychologistRepository psychologistRepository;
+    private final TimeSlotRepository timeSlotRepository;
+    private final AppointmentRepository appointmentRepository;
+
+    Users createUser(Role role) {
+        int n = PERSON.incrementAndGet();
+        String userId = generalService.generateUserID();
+        return userRepository.save(Users.builder()
+                .userId(userId)
+                .hashedID(userId)
+                .passwordHash("-")
+                .fullName(role + " " + n)
+                .email("fixture" + n + "@example.com")
+                .role(role)
+                .gender(Gender.FEMALE)
+                .createdAt(LocalDateTime.now())
+                .updatedAt(LocalDateTime.now())
+                .isVerified(true)
+                .isActive(true)
+                .verificationToken("-")
+                .tokenExpiration(LocalDateTime.now())
+                .build());
+    }
+
+    Students createStudent() {
+        Users user = createUser(Role.STUDENT);
+        return studentRepository.save(new Students(generalService.generateStudentID(), user.getUserId(), 10, "A",
+                "Example High School", BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+    }
+
+    Psychologists createPsychologist() {
+        Users user = createUser(Role.PSYCHOLOGIST);
+        return psychologistRepository.save(new Psychologists(generalService.generatePsychologistID(), user.getUserId(),
+                5, PsychologistStatus.ACTIVE, "DPT001"));
+    }
+
+    TimeSlots createSlot(Psychologists psychologist, int maxCapacity) {
+        TimeSlots slot = new TimeSlots(SLOT_DATE, LocalTime.of(8, 0), LocalTime.of(9, 0),
+                psychologist, SLOT_NUMBER.incrementAndGet());
+        slot.setMaxCapacity(maxCapacity);
+        return timeSlotRepository.save(slot);
+    }
+
+    Appointments createAppointment(Students student, TimeSlots slot) {
+        Appointments appointment = new Appointments(generalService.generateAppointmentId(), slot.getTimeSlotsID(),
+                student.getStudentID(), slot.getPsychologist().getPsychologistID(), AppointmentStatus.SCHEDULED);
+        appointment.setSlotDate(slot.getSlotDate());
+        return appointmentRepository.save(appointment);
+    }
+}
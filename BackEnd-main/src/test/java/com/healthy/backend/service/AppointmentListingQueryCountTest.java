@@ -0,0 +1,118 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.entity.Psychologists;
+import com.healthy.backend.entity.Students;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.ScheduledAnnotationBeanPostProcessor;
+import org.springframework.scheduling.config.ScheduledTask;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Các danh sách appointment phải chạy cùng một số câu SQL dù trả về 1 hay N dòng (không load từng
+ * student/psychologist theo mỗi dòng). Đếm bằng Hibernate Statistics; mỗi lần gọi chạy trong một
+ * transaction read-only như open-in-view của một request. Cần Docker cho MySQL, không có thì bị bỏ qua.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import(AppointmentFixtures.class)
+@Testcontainers(disabledWithoutDocker = true)
+class AppointmentListingQueryCountTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(AppointmentListingQueryCountTest.class);
+
+    private static final int N = 6;
+
+    @Container
+    @ServiceConnection
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private AppointmentFixtures fixtures;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ScheduledAnnotationBeanPostProcessor scheduledTasks;
+
+    @BeforeEach
+    void stopScheduledJobs() {
+        // Statistics đếm chung cho cả SessionFactory: outbox poller và các job định kỳ không được chen vào lúc đo
+        scheduledTasks.getScheduledTasks().forEach(ScheduledTask::cancel);
+    }
+
+    @Test
+    void allAppointmentsRunConstantStatements() {
+        fixtures.createAppointment(fixtures.createStudent(), fixtures.createSlot(fixtures.createPsychologist(), 3));
+        long fewRows = statements(() -> appointmentService.getAllAppointments());
+
+        for (int i = 0; i < N; i++) {
+            fixtures.createAppointment(fixtures.createStudent(), fixtures.createSlot(fixtures.createPsychologist(), 3));
+        }
+        long moreRows = statements(() -> appointmentService.getAllAppointments());
+
+        logger.info("getAllAppointments: {} statements for few rows, {} for {} more", fewRows, moreRows, N);
+        assertEquals(fewRows, moreRows);
+    }
+
+    @Test
+    void studentAppointmentsRunConstantStatements() {
+        Students student = fixtures.createStudent();
+        fixtures.createAppointment(student, fixtures.createSlot(fixtures.createPsychologist(), 3));
+        long oneRow = statements(() -> assertEquals(1, userService.getUserAppointment(student.getUserID()).size()));
+
+        for (int i = 0; i < N - 1; i++) {
+            fixtures.createAppointment(student, fixtures.createSlot(fixtures.createPsychologist(), 3));
+        }
+        long nRows = statements(() -> assertEquals(N, userService.getUserAppointment(student.getUserID()).size()));
+
+        logger.info("student appointments: {} statements for 1 row, {} for {} rows", oneRow, nRows, N);
+        assertEquals(oneRow, nRows);
+    }
+
+    @Test
+    void psychologistAppointmentsRunConstantStatements() {
+        Psychologists psychologist = fixtures.createPsychologist();
+        fixtures.createAppointment(fixtures.createStudent(), fixtures.createSlot(psychologist, 3));
+        long oneRow = statements(() ->
+                assertEquals(1, userService.getUserAppointment(psychologist.getUserID()).size()));
+
+        for (int i = 0; i < N - 1; i++) {
+            fixtures.createAppointment(fixtures.createStudent(), fixtures.createSlot(psychologist, 3));
+        }
+        long nRows = statements(() ->
+                assertEquals(N, userService.getUserAppointment(psychologist.getUserID()).size()));
+
+        logger.info("psychologist appointments: {} statements for 1 row, {} for {} rows", oneRow, nRows, N);
+        assertEquals(oneRow, nRows);
+    }
+
+    private long statements(Runnable listing) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        statistics.clear();
+        readOnly.executeWithoutResult(status -> listing.run());
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,115 @@
+package com.healthy.backend.service;
+
+import com.healthy.backend.dto.appointment.AppointmentRequest;
+import com.healthy.backend.entity.TimeSlots;
+import com.healthy.backend.enums.TimeslotStatus;
+import com.healthy.backend.exception.ResourceAlreadyExistsException;
+import com.healthy.backend.repository.AppointmentRepository;
+import com.healthy.backend.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Hàng trăm học sinh đặt cùng một slot cùng lúc: số lần đặt thành công và currentBookings phải đúng bằng
+ * maxCapacity, các lần còn lại nhận "slot đầy". Cần Docker cho MySQL, không có Docker thì test bị bỏ qua.
+ */
+@SpringBootTest
+@Import(AppointmentFixtures.class)
+@Testcontainers(disabledWithoutDocker = true)
+class BookAppointmentConcurrencyTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookAppointmentConcurrencyTest.class);
+
+    private static final int STUDENTS = 300;
+    private static final int CAPACITY = 25;
+    private static final int THREADS = 32;
+
+    @Container
+    @ServiceConnection
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @Autowired
+    private AppointmentService appointmentService;
+    @Autowired
+    private AppointmentFixtures fixtures;
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void parallelBookingsNeverOverbookSlot() throws Exception {
+        TimeSlots slot = fixtures.createSlot(fixtures.createPsychologist(), CAPACITY);
+        List<String> userIds = new ArrayList<>(STUDENTS);
+        for (int i = 0; i < STUDENTS; i++) {
+            userIds.add(fixtures.createStudent().getUserID());
+        }
+
+        AtomicInteger booked = new AtomicInteger();
+        AtomicInteger full = new AtomicInteger();
+        Queue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>(STUDENTS);
+        for (String userId : userIds) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    appointmentService.bookAppointment(AppointmentRequest.builder()
+                            .userId(userId)
+                            .timeSlotId(slot.getTimeSlotsID())
+                            .build());
+                    booked.incrementAndGet();
+                } catch (ResourceAlreadyExistsException e) {
+                    full.incrementAndGet();
+                } catch (Throwable e) {
+                    unexpected.add(e);
+                }
+                return null;
+            }));
+        }
+
+        long started = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        long elapsedMs = Math.max((System.nanoTime() - started) / 1_000_000, 1);
+        executor.shutdown();
+
+        logger.info("{} bookings on one slot with {} threads: {} booked, {} full in {} ms ({} bookings/s)",
+                STUDENTS, THREADS, booked.get(), full.get(), elapsedMs, STUDENTS * 1000L / elapsedMs);
+
+        assertTrue(unexpected.isEmpty(), () -> "Unexpected failures: " + unexpected);
+        assertEquals(CAPACITY, booked.get());
+        assertEquals(STUDENTS - CAPACITY, full.get());
+
+        TimeSlots saved = timeSlotRepository.findById(slot.getTimeSlotsID()).orElseThrow();
+        assertEquals(CAPACITY, saved.getCurrentBookings());
+        assertEquals(TimeslotStatus.BOOKED, saved.getStatus());
+        assertEquals(CAPACITY, appointmentRepository.findAll().stream()
+                .filter(a -> slot.getTimeSlotsID().equals(a.getTimeSlotsID()))
+                .count());
+    }
+}
@@ -0,0 +1,81 @@
+package com.healthy.backend.stats;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    private static final long MAX_VALUE = (1L << 40) - 1;
+
+    @Test
+    void valuesBelow64AreExact() {
+        for (int v = 0; v < 64; v++) {
+            assertEquals(v, LatencyHistogram.indexOf(v));
+            assertEquals(v, LatencyHistogram.valueOf(v));
+        }
+    }
+
+    @Test
+    void bucketBoundaries() {
+        // Từ 64 trở lên: 32 bucket cho mỗi lũy thừa của 2
+        assertEquals(64, LatencyHistogram.indexOf(64));
+        assertEquals(64, LatencyHistogram.indexOf(65));
+        assertEquals(65, LatencyHistogram.indexOf(66));
+        assertEquals(95, LatencyHistogram.indexOf(127));
+        assertEquals(96, LatencyHistogram.indexOf(128));
+        assertEquals(96, LatencyHistogram.indexOf(131));
+        assertEquals(97, LatencyHistogram.indexOf(132));
+        assertEquals(64 + 34 * 32 - 1, LatencyHistogram.indexOf(MAX_VALUE));
+    }
+
+    @Test
+    void indexIsContiguousAndValueStaysInsideItsBucket() {
+        int previous = LatencyHistogram.indexOf(63);
+        for (long v = 64; v < (1 << 20); v++) {
+            int index = LatencyHistogram.indexOf(v);
+            assertTrue(index == previous || index == previous + 1, "gap at " + v);
+            previous = index;
+
+            long representative = LatencyHistogram.valueOf(index);
+            assertEquals(index, LatencyHistogram.indexOf(representative), "midpoint leaves bucket at " + v);
+            assertTrue(Math.abs(representative - v) <= v / 32.0, "error too large at " + v);
+        }
+    }
+
+    @Test
+    void emptyHistogramHasNoPercentiles() {
+        LatencySummary summary = new LatencyHistogram().summarize();
+
+        assertEquals(0, summary.getCount());
+        assertNull(summary.getP50());
+        assertNull(summary.getMax());
+    }
+
+    @Test
+    void percentilesOfUniformValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int v = 1; v <= 100; v++) {
+            histogram.record(v);
+        }
+
+        LatencySummary summary = histogram.summarize();
+        assertEquals(100, summary.getCount());
+        assertEquals(50, summary.getP50());
+        assertEquals(91, summary.getP90());   // bucket [90, 91]
+        assertEquals(99, summary.getP99());   // bucket [98, 99]
+        assertEquals(101, summary.getMax());  // bucket [100, 101]
+    }
+
+    @Test
+    void outOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencySummary summary = histogram.summarize();
+        assertEquals(2, summary.getCount());
+        assertEquals(0, summary.getP50());
+        assertEquals(LatencyHistogram.valueOf(LatencyHistogram.indexOf(MAX_VALUE)), summary.getMax());
+    }
+}
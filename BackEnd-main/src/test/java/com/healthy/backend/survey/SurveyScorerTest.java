@@ -0,0 +1,93 @@
+package com.healthy.backend.survey;
+
+import com.healthy.backend.exception.ResourceInvalidException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SurveyScorerTest {
+
+    // Q1: 0..4, Q2: 4..0 (đảo điểm), Q3: 0..3
+    private final SurveyScorer scorer = SurveyScorer.compile(List.of(
+            question("SQR001", 0, 1, 2, 3, 4),
+            question("SQR002", 4, 3, 2, 1, 0),
+            question("SQR003", 0, 1, 2, 3)));
+
+    @Test
+    void maxScoreIsSumOfPerQuestionMax() {
+        assertEquals(4 + 4 + 3, scorer.maxScore());
+    }
+
+    @Test
+    void scoresFullSubmission() {
+        SurveyScorer.Score score = scorer.score(List.of("SQR001-4", "SQR002-0", "SQR003-2"));
+
+        assertEquals(4 + 4 + 2, score.total());
+        assertEquals(11, score.maxScore());
+        assertArrayEquals(new int[]{0, 1, 2}, score.answerQuestions());
+    }
+
+    @Test
+    void answerOrderDoesNotMatter() {
+        SurveyScorer.Score score = scorer.score(List.of("SQR003-1", "SQR001-2"));
+
+        assertEquals(3, score.total());
+        assertArrayEquals(new int[]{2, 0}, score.answerQuestions());
+        assertEquals("SQR003", scorer.questionId(score.answerQuestions()[0]));
+    }
+
+    @Test
+    void partialSubmissionScoresAnsweredQuestionsOnly() {
+        SurveyScorer.Score score = scorer.score(List.of("SQR002-1"));
+
+        assertEquals(3, score.total());
+        assertEquals(11, score.maxScore());
+        assertEquals(1, score.answerQuestions().length);
+    }
+
+    @Test
+    void emptySubmissionScoresZero() {
+        SurveyScorer.Score score = scorer.score(List.of());
+
+        assertEquals(0, score.total());
+        assertEquals(0, score.answerQuestions().length);
+    }
+
+    @Test
+    void rejectsUnknownOption() {
+        ResourceInvalidException e = assertThrows(ResourceInvalidException.class,
+                () -> scorer.score(List.of("SQR001-0", "SQO999")));
+        assertTrue(e.getMessage().contains("SQO999"));
+    }
+
+    @Test
+    void rejectsQuestionAnsweredTwice() {
+        // Hai đáp án khác nhau của cùng một câu hỏi, không liền kề
+        ResourceInvalidException e = assertThrows(ResourceInvalidException.class,
+                () -> scorer.score(List.of("SQR001-0", "SQR003-1", "SQR001-3")));
+        assertTrue(e.getMessage().contains("SQR001"));
+    }
+
+    @Test
+    void rejectsSameOptionTwice() {
+        assertThrows(ResourceInvalidException.class, () -> scorer.score(List.of("SQR002-2", "SQR002-2")));
+    }
+
+    @Test
+    void rejectsMoreAnswersThanQuestions() {
+        assertThrows(ResourceInvalidException.class,
+                () -> scorer.score(List.of("SQR001-0", "SQR002-0", "SQR003-0", "SQR001-1")));
+    }
+
+    // Option ID = "<questionId>-<vị trí>", điểm lấy theo thứ tự truyền vào
+    private static SurveyDefinition.Question question(String questionId, int... scores) {
+        List<SurveyDefinition.Option> options = new ArrayList<>();
+        for (int i = 0; i < scores.length; i++) {
+            options.add(new SurveyDefinition.Option(questionId + "-" + i, "Option " + i, scores[i]));
+        }
+        return new SurveyDefinition.Question(questionId, "Question " + questionId, "STRESS", options);
+    }
+}